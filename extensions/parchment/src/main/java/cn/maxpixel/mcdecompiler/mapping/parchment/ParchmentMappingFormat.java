@@ -21,6 +21,8 @@ package cn.maxpixel.mcdecompiler.mapping.parchment;
 import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
+import cn.maxpixel.mcdecompiler.mapping.processor.ParseProfile;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.BufferedReader;
@@ -61,7 +63,8 @@ public enum ParchmentMappingFormat implements MappingFormat.Classified<PairedMap
     }
 
     @Override
-    public @NotNull ClassifiedMapping<PairedMapping> read(@NotNull BufferedReader reader) {
-        return getProcessor().process(Objects.requireNonNull(reader));
+    public @NotNull ClassifiedMapping<PairedMapping> read(@NotNull BufferedReader reader, @NotNull StringPool pool,
+                                                          @NotNull ParseProfile profile) {
+        return getProcessor().process(Objects.requireNonNull(reader), pool, profile);
     }
 }
\ No newline at end of file
@@ -25,11 +25,15 @@ import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
 import cn.maxpixel.mcdecompiler.mapping.component.Documented;
 import cn.maxpixel.mcdecompiler.mapping.component.LocalVariableTable;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
+import cn.maxpixel.mcdecompiler.mapping.processor.LineCursor;
 import cn.maxpixel.mcdecompiler.mapping.processor.MappingProcessor;
+import cn.maxpixel.mcdecompiler.mapping.processor.ParseProfile;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import cn.maxpixel.mcdecompiler.mapping.util.Utils;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.io.Reader;
@@ -50,7 +54,21 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
         return process(new StringListReader(content));
     }
 
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
+        return process(new StringListReader(content.toList()), pool, profile);
+    }
+
     public ClassifiedMapping<PairedMapping> process(Reader rd) {
+        return process(rd, new StringPool(), ParseProfile.ALL);
+    }
+
+    /**
+     * Processes the json, interning repeated strings in the pool and only processing the components in the profile
+     */
+    public ClassifiedMapping<PairedMapping> process(Reader rd, StringPool pool, ParseProfile profile) {
+        boolean docs = profile.needs(Documented.class);
+        boolean lvt = profile.needs(LocalVariableTable.Paired.class);
         try (JsonReader reader = new JsonReader(rd)) {
             reader.beginObject();
 
@@ -63,8 +81,8 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
                                 "current version " + FormatVersion.CURRENT);
                     }
                 }
-                case KEY_PACKAGES -> handlePackages(reader, mappings);
-                case KEY_CLASSES -> handleClasses(reader, mappings);
+                case KEY_PACKAGES -> handlePackages(reader, mappings, docs);
+                case KEY_CLASSES -> handleClasses(reader, mappings, pool, docs, lvt);
                 default -> reader.skipValue();
             }
             reader.endObject();
@@ -74,7 +92,11 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
         }
     }
 
-    private static @NotNull Documented handleDocs(JsonReader reader) throws IOException {
+    private static @Nullable Documented handleDocs(JsonReader reader, boolean docs) throws IOException {
+        if (!docs) {
+            reader.skipValue();
+            return null;
+        }
         reader.beginArray();
         Documented doc = new Documented();
         while (reader.peek() != JsonToken.END_ARRAY) doc.getContents().add(reader.nextString());
@@ -82,7 +104,8 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
         return doc;
     }
 
-    private static void handleClasses(JsonReader reader, ClassifiedMapping<PairedMapping> mappings) throws IOException {
+    private static void handleClasses(JsonReader reader, ClassifiedMapping<PairedMapping> mappings, StringPool pool,
+                                      boolean docs, boolean lvt) throws IOException {
         reader.beginArray();
         while (reader.peek() != JsonToken.END_ARRAY) {
             reader.beginObject();
@@ -90,10 +113,10 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
             ClassMapping<PairedMapping> cm = new ClassMapping<>(new PairedMapping(""));
             Documented doc = null;
             while (reader.peek() == JsonToken.NAME) switch (reader.nextName()) {
-                case KEY_NAME -> cm.mapping = new PairedMapping(reader.nextString());
-                case KEY_JAVADOC -> doc = handleDocs(reader);
-                case KEY_FIELDS -> handleFields(reader, cm);
-                case KEY_METHODS -> handleMethods(reader, cm);
+                case KEY_NAME -> cm.mapping = new PairedMapping(pool.intern(reader.nextString()));
+                case KEY_JAVADOC -> doc = handleDocs(reader, docs);
+                case KEY_FIELDS -> handleFields(reader, cm, pool, docs);
+                case KEY_METHODS -> handleMethods(reader, cm, pool, docs, lvt);
                 default -> reader.skipValue();
             }
             reader.endObject();
@@ -105,7 +128,7 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
         reader.endArray();
     }
 
-    private static LocalVariableTable.@NotNull Paired handleParameters(JsonReader reader) throws IOException {
+    private static LocalVariableTable.@NotNull Paired handleParameters(JsonReader reader, boolean docs) throws IOException {
         reader.beginArray();
         LocalVariableTable.Paired lvt = new LocalVariableTable.Paired();
         while (reader.peek() != JsonToken.END_ARRAY) {
@@ -118,8 +141,10 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
                 case KEY_INDEX -> index = reader.nextInt();
                 case KEY_NAME -> param = new PairedMapping(reader.nextString());
                 case KEY_JAVADOC -> {
-                    pDoc = new Documented();
-                    pDoc.setContentString(reader.nextString());
+                    if (docs) {
+                        pDoc = new Documented();
+                        pDoc.setContentString(reader.nextString());
+                    } else reader.skipValue();
                 }
                 default -> reader.skipValue();
             }
@@ -133,7 +158,8 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
         return lvt;
     }
 
-    private static void handleMethods(JsonReader reader, ClassMapping<PairedMapping> cm) throws IOException {
+    private static void handleMethods(JsonReader reader, ClassMapping<PairedMapping> cm, StringPool pool, boolean docs,
+                                      boolean lvt) throws IOException {
         reader.beginArray();
         while (reader.peek() != JsonToken.END_ARRAY) {
             reader.beginObject();
@@ -141,26 +167,29 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
             PairedMapping method = null;
             Descriptor.Unmapped mDesc = null;
             Documented mDoc = null;
-            LocalVariableTable.Paired lvt = null;
+            LocalVariableTable.Paired params = null;
             while (reader.peek() == JsonToken.NAME) switch (reader.nextName()) {
-                case KEY_NAME -> method = new PairedMapping(reader.nextString());
-                case KEY_DESCRIPTOR -> mDesc = new Descriptor.Unmapped(reader.nextString());
-                case KEY_JAVADOC -> mDoc = handleDocs(reader);
-                case KEY_PARAMETERS -> lvt = handleParameters(reader);
+                case KEY_NAME -> method = new PairedMapping(pool.intern(reader.nextString()));
+                case KEY_DESCRIPTOR -> mDesc = new Descriptor.Unmapped(pool.intern(reader.nextString()));
+                case KEY_JAVADOC -> mDoc = handleDocs(reader, docs);
+                case KEY_PARAMETERS -> {
+                    if (lvt) params = handleParameters(reader, docs);
+                    else reader.skipValue();
+                }
                 default -> reader.skipValue();
             }
             reader.endObject();
             if (method != null) {
                 if (mDesc != null) method.addComponent(mDesc);
                 if (mDoc != null) method.addComponent(mDoc);
-                if (lvt != null) method.addComponent(lvt);
+                if (params != null) method.addComponent(params);
                 cm.addMethod(method);
             }
         }
         reader.endArray();
     }
 
-    private static void handleFields(JsonReader reader, ClassMapping<PairedMapping> cm) throws IOException {
+    private static void handleFields(JsonReader reader, ClassMapping<PairedMapping> cm, StringPool pool, boolean docs) throws IOException {
         reader.beginArray();
         while (reader.peek() != JsonToken.END_ARRAY) {
             reader.beginObject();
@@ -169,9 +198,9 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
             Descriptor.Unmapped fDesc = null;
             Documented fDoc = null;
             while (reader.peek() == JsonToken.NAME) switch (reader.nextName()) {
-                case KEY_NAME -> field = new PairedMapping(reader.nextString());
-                case KEY_DESCRIPTOR -> fDesc = new Descriptor.Unmapped(reader.nextString());
-                case KEY_JAVADOC -> fDoc = handleDocs(reader);
+                case KEY_NAME -> field = new PairedMapping(pool.intern(reader.nextString()));
+                case KEY_DESCRIPTOR -> fDesc = new Descriptor.Unmapped(pool.intern(reader.nextString()));
+                case KEY_JAVADOC -> fDoc = handleDocs(reader, docs);
                 default -> reader.skipValue();
             }
             reader.endObject();
@@ -184,7 +213,7 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
         reader.endArray();
     }
 
-    private static void handlePackages(JsonReader reader, ClassifiedMapping<PairedMapping> mappings) throws IOException {
+    private static void handlePackages(JsonReader reader, ClassifiedMapping<PairedMapping> mappings, boolean docs) throws IOException {
         reader.beginArray();
         while (reader.peek() != JsonToken.END_ARRAY) {
             reader.beginObject();
@@ -193,7 +222,7 @@ public enum ParchmentMappingProcessor implements MappingProcessor.Classified<Pai
             Documented doc = null;
             while (reader.peek() == JsonToken.NAME) switch (reader.nextName()) {
                 case KEY_NAME -> pkg = new PairedMapping(reader.nextString());
-                case KEY_JAVADOC -> doc = handleDocs(reader);
+                case KEY_JAVADOC -> doc = handleDocs(reader, docs);
                 default -> reader.skipValue();
             }
             reader.endObject();
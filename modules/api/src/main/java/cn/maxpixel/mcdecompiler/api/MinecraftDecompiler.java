@@ -25,6 +25,7 @@ import cn.maxpixel.mcdecompiler.common.app.util.*;
 import cn.maxpixel.mcdecompiler.decompiler.Decompilers;
 import cn.maxpixel.mcdecompiler.decompiler.IDecompiler;
 import cn.maxpixel.mcdecompiler.decompiler.IExternalResourcesDecompiler;
+import cn.maxpixel.mcdecompiler.decompiler.IInMemoryDecompiler;
 import cn.maxpixel.mcdecompiler.decompiler.ILibRecommendedDecompiler;
 import cn.maxpixel.mcdecompiler.mapping.NamespacedMapping;
 import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
@@ -34,6 +35,7 @@ import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
 import cn.maxpixel.mcdecompiler.mapping.util.Utils;
 import cn.maxpixel.mcdecompiler.remapper.ClassifiedDeobfuscator;
 import cn.maxpixel.mcdecompiler.remapper.DeobfuscationOptions;
+import cn.maxpixel.mcdecompiler.remapper.io.RawZipReader;
 import cn.maxpixel.mcdecompiler.remapper.util.IOUtil;
 import cn.maxpixel.rewh.logging.LogManager;
 import cn.maxpixel.rewh.logging.Logger;
@@ -63,6 +65,7 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
 
     private final Options options;
     private final ClassifiedDeobfuscator deobfuscator;
+    private boolean deobfuscated;
 
     static {
         Runtime.getRuntime().addShutdownHook(new Thread(() -> FileUtil.deleteIfExists(Directories.TEMP_DIR)));
@@ -74,8 +77,13 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
     }
 
     public void deobfuscate() {
+        deobfuscate(options.outputJar());
+    }
+
+    private void deobfuscate(@Nullable Path outputJar) {
         try {
-            deobfuscator.deobfuscate(options.inputJar(), options.outputJar());
+            deobfuscator.deobfuscate(options.inputJar(), outputJar);
+            this.deobfuscated = true;
         } catch (IOException e) {
             LOGGER.fatal("Error deobfuscating", e);
             throw Utils.wrapInRuntime(e);
@@ -89,26 +97,46 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
     }
 
     public void decompile(String decompilerName, @Nullable Path incrementalJar) {
+        decompile(decompilerName, incrementalJar, false);
+    }
+
+    /**
+     * Deobfuscates and then decompiles. Unlike {@link #decompile(String, Path)}, an existing output jar is always
+     * regenerated instead of being reused
+     */
+    public void deobfuscateAndDecompile(String decompilerName, @Nullable Path incrementalJar) {
+        decompile(decompilerName, incrementalJar, true);
+    }
+
+    private void decompile(String decompilerName, @Nullable Path incrementalJar, boolean forceDeobfuscate) {
         var decompiler = Decompilers.get(decompilerName);
         if (decompiler == null) throw new IllegalArgumentException("Decompiler \"" + decompilerName + "\" does not exist");
-        if (Files.notExists(options.outputJar())) deobfuscate();
+        var inputJar = options.outputJar();
+        boolean directory = decompiler.getSourceType() == IDecompiler.SourceType.DIRECTORY;
+        if (!deobfuscated) {
+            if (forceDeobfuscate || Files.notExists(inputJar)) {
+                deobfuscator.retainClasses(directory);// Hand the remapped classes over directly instead of reading them back
+                // The jar is only needed when it is requested, or when the decompiler/incremental decompilation reads it
+                deobfuscate(!options.outputJarRequested() && directory && incrementalJar == null ? null : inputJar);
+            } else collectClassesToDecompile(inputJar);// Reuse the deobfuscated jar
+        }
         if (deobfuscator.toDecompile.isEmpty()) {
             LOGGER.info("Nothing to decompile, skipping decompilation");
             return;
         }
         LOGGER.info("Decompiling using \"{}\"", decompiler.name());
-        var inputJar = options.outputJar();
         var outputDir = options.outputDecompDir();
-        try (FileSystem jarFs = JarUtil.createZipFs(inputJar)) {
+        try {
             if (incrementalJar == null) FileUtil.deleteIfExists(outputDir);
             Files.createDirectories(outputDir);
+            Object2ObjectMap<String, byte[]> classes = directory ? getClassesToDecompile() : null;
             Path libDownloadPath = Files.createDirectories(Directories.DOWNLOAD_DIR.resolve("libs").toAbsolutePath().normalize());
             if (decompiler instanceof IExternalResourcesDecompiler erd)
                 erd.extractTo(Directories.TEMP_DIR.toAbsolutePath().normalize());
             if (decompiler instanceof ILibRecommendedDecompiler lrd) {
                 ObjectOpenHashSet<Path> libs = options.bundledLibs().map(ObjectOpenHashSet::new).orElseGet(() ->
                         DownloadingUtil.downloadLibraries(options.version(), libDownloadPath));
-                if (incrementalJar != null && decompiler.getSourceType() == IDecompiler.SourceType.DIRECTORY) {
+                if (incrementalJar != null && directory) {
                     try (FileSystem incrementalFs = JarUtil.createZipFs(incrementalJar);
                         Stream<Path> paths = FileUtil.iterateFiles(incrementalFs.getPath(""))) {
                         var toDecompile = deobfuscator.toDecompile;
@@ -124,7 +152,7 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
                                         md.update(IOUtil.readAllBytes(p));
                                         StringBuilder hashA = MiscUtils.createHashString(md);
 
-                                        md.update(IOUtil.readAllBytes(jarFs.getPath(path)));
+                                        md.update(classes.get(path));
                                         StringBuilder hashB = MiscUtils.createHashString(md);
                                         if (hashA.compareTo(hashB) == 0) {
                                             maybeRemoved.add(path);
@@ -153,9 +181,24 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
             }
             switch (decompiler.getSourceType()) {
                 case DIRECTORY -> {
-                    Path decompileClasses = Directories.TEMP_DIR.resolve("decompileClasses").toAbsolutePath().normalize();
-                    deobfuscator.toDecompile.parallelStream().forEach(path -> FileUtil.copyFile(jarFs.getPath(path), decompileClasses.resolve(path)));
-                    decompiler.decompile(decompileClasses, outputDir);
+                    // Filter into a copy, as the retained classes belong to the deobfuscator
+                    Object2ObjectOpenHashMap<String, byte[]> selected = new Object2ObjectOpenHashMap<>(deobfuscator.toDecompile.size());
+                    for (String name : deobfuscator.toDecompile) {
+                        byte[] bytes = classes.get(name);
+                        if (bytes != null) selected.put(name, bytes);
+                    }
+                    if (decompiler instanceof IInMemoryDecompiler imd) imd.decompile(selected, outputDir);
+                    else {
+                        Path decompileClasses = Directories.TEMP_DIR.resolve("decompileClasses").toAbsolutePath().normalize();
+                        selected.object2ObjectEntrySet().parallelStream().forEach(e -> {
+                            try {
+                                Files.write(FileUtil.makeParentDirs(decompileClasses.resolve(e.getKey())), e.getValue());
+                            } catch (IOException ex) {
+                                throw Utils.wrapInRuntime(ex);
+                            }
+                        });
+                        decompiler.decompile(decompileClasses, outputDir);
+                    }
                 }
                 case FILE -> decompiler.decompile(inputJar, outputDir);
             }
@@ -164,14 +207,46 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
         }
     }
 
+    /**
+     * Fills {@link Deobfuscator#toDecompile} with the classes of an existing deobfuscated jar
+     */
+    private void collectClassesToDecompile(Path jar) {
+        deobfuscator.toDecompile.clear();
+        try (RawZipReader reader = new RawZipReader(jar)) {
+            for (RawZipReader.Entry entry : reader.getEntries()) {
+                if (entry.getName().endsWith(".class")) deobfuscator.toDecompile.add(entry.getName());
+            }
+        } catch (IOException e) {
+            LOGGER.fatal("Error reading the deobfuscated jar", e);
+            throw Utils.wrapInRuntime(e);
+        }
+    }
+
+    /**
+     * Gets the classes to decompile from the retained classes, or from the output jar if they are not retained
+     */
+    private Object2ObjectMap<String, byte[]> getClassesToDecompile() throws IOException {
+        if (!deobfuscator.remappedClasses.isEmpty()) return deobfuscator.remappedClasses;
+        Object2ObjectOpenHashMap<String, byte[]> classes = new Object2ObjectOpenHashMap<>(deobfuscator.toDecompile.size());
+        try (RawZipReader reader = new RawZipReader(options.outputJar())) {
+            for (RawZipReader.Entry entry : reader.getEntries()) {
+                if (deobfuscator.toDecompile.contains(entry.getName())) classes.put(entry.getName(), entry.readBytes());
+            }
+        }
+        return classes;
+    }
+
     public static final class OptionBuilder {
         private static final Logger LOGGER = LogManager.getLogger("Option Builder");
         private String version;
         private SideType type;
         private boolean includeOthers = true;
         private boolean rvn;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private Path cacheDir;
         private MappingCollection<?> mappingCollection;
         private Path outputJar;
+        private boolean outputJarRequested;
         private Path outputDecompDir;
         private final ObjectSet<Path> extraJars = new ObjectOpenHashSet<>();
         private final ObjectSet<String> extraClasses = new ObjectOpenHashSet<>();
@@ -295,6 +370,7 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
 
         public OptionBuilder output(Path outputJar) {
             this.outputJar = Objects.requireNonNull(outputJar, "outputJar cannot be null").toAbsolutePath().normalize();
+            this.outputJarRequested = true;
             return this;
         }
 
@@ -318,6 +394,17 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
             return this;
         }
 
+        public OptionBuilder workers(int workers) {
+            if (workers < 1) throw new IllegalArgumentException("workers must be positive");
+            this.workers = workers;
+            return this;
+        }
+
+        public OptionBuilder cacheDir(Path cacheDir) {
+            this.cacheDir = Objects.requireNonNull(cacheDir, "cacheDir cannot be null").toAbsolutePath().normalize();
+            return this;
+        }
+
         public OptionBuilder addExtraJar(Path jar) {
             this.extraJars.add(jar);
             return this;
@@ -353,7 +440,7 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
                 throw new IllegalArgumentException("The parent directory of outputJar cannot be the same as outputDecomp");
             return new Options() {
                 private final DeobfuscationOptions deobfuscation = new DeobfuscationOptions(includeOthers, rvn, reverse,
-                        ObjectSets.unmodifiable(extraJars), ObjectSets.unmodifiable(extraClasses), refMap);
+                        ObjectSets.unmodifiable(extraJars), ObjectSets.unmodifiable(extraClasses), refMap, workers, cacheDir);
 
                 @Override
                 public String version() {
@@ -390,6 +477,11 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
                     return outputJar;
                 }
 
+                @Override
+                public boolean outputJarRequested() {
+                    return outputJarRequested;
+                }
+
                 @Override
                 public Path outputDecompDir() {
                     return outputDecompDir;
@@ -435,6 +527,14 @@ public class MinecraftDecompiler {// This class is not designed to be reusable
 
         Path outputJar();
 
+        /**
+         * Whether the output jar is explicitly requested. If not, the output jar may not be written when decompiling
+         * @return true if the output jar must be written
+         */
+        default boolean outputJarRequested() {
+            return true;
+        }
+
         Path outputDecompDir();
 
         String namespaceTarget();
@@ -104,6 +104,20 @@ public class DownloadingUtil {
 
     @NonBlocking
     public static CompletableFuture<BufferedReader> downloadMapping(@NotNull String version, @NotNull SideType type) {
+        return downloadMappingFile(version, type).thenApply(LambdaUtil.unwrap(Files::newBufferedReader, LambdaUtil::rethrowAsCompletion));
+    }
+
+    @Blocking
+    public static Path downloadMappingFileSync(@NotNull String version, @NotNull SideType type) {
+        return downloadMappingFile(version, type).join();
+    }
+
+    /**
+     * Download the official mapping if the local file is invalid
+     * @return The local mapping file
+     */
+    @NonBlocking
+    public static CompletableFuture<Path> downloadMappingFile(@NotNull String version, @NotNull SideType type) {
         return VersionManifest.get(version).thenComposeAsync(object -> {
             String id = object.get("id").getAsString();
             JsonObject mappings = object.getAsJsonObject("downloads")
@@ -118,7 +132,7 @@ public class DownloadingUtil {
                         HttpResponse.BodyHandlers.ofFile(FileUtil.makeParentDirs(p), OPEN_OPTIONS)
                 ).thenApply(HttpResponse::body);
             } else return CompletableFuture.completedFuture(p);
-        }).thenApply(LambdaUtil.unwrap(Files::newBufferedReader, LambdaUtil::rethrowAsCompletion));
+        });
     }
 
     /**
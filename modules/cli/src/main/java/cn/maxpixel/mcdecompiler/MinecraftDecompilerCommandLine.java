@@ -73,7 +73,8 @@ public class MinecraftDecompilerCommandLine {
                 "Manually specify the mapping format").availableIf(mappingPathO).withRequiredArg();
         ArgumentAcceptingOptionSpec<String> namespaceTargetO = parser.acceptsAll(of("t", "namespace-target"), "Namespace to " +
                 "remap from/to if you are using namespaced mappings(Tiny, Tsrgv2)").availableIf(mappingPathO).withRequiredArg();
-        ArgumentAcceptingOptionSpec<Path> outputO = parser.acceptsAll(of("o", "output"), "Mapped output file, including the suffix.")
+        ArgumentAcceptingOptionSpec<Path> outputO = parser.acceptsAll(of("o", "output"), "Mapped output file, including the suffix. " +
+                "When decompiling with a decompiler that reads classes from memory, the file is only written if this is specified")
                 .withRequiredArg().withValuesConvertedBy(new PathConverter());
         ArgumentAcceptingOptionSpec<Path> outputDecompO = parser.accepts("decompiled-output", "Decompiled output directory. " +
                 "Will be deleted before decompiling if it exists").withRequiredArg().withValuesConvertedBy(new PathConverter());
@@ -87,7 +88,15 @@ public class MinecraftDecompilerCommandLine {
                 "information").withRequiredArg().withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
         ArgumentAcceptingOptionSpec<String> extraClassesO = parser.acceptsAll(of("c", "extra-class"), "Extra classes/packages that " +
                 "will be deobfuscated. Can be specified multiple times. Use \"/\" instead of \".\" to separate names. Use \"*\" or \"*all*\" to " +
-                "deobfuscate all").withRequiredArg();
+                "deobfuscate all. Other selectors are name prefixes, unless they contain \"*\" or \"?\", in which case they are globs " +
+                "matching the whole name(\"*\" and \"?\" stop at \"/\", \"**\" does not), e.g. \"net/foo/*\" selects the classes " +
+                "directly in net/foo while \"net/foo/\" selects its subpackages too. Regular expressions prefixed with \"regex:\" " +
+                "are also supported")
+                .withRequiredArg();
+        ArgumentAcceptingOptionSpec<Integer> workersO = parser.acceptsAll(of("w", "workers"), "Number of threads used to " +
+                "deobfuscate. Defaults to the number of available processors").withRequiredArg().ofType(Integer.class);
+        ArgumentAcceptingOptionSpec<Path> cacheDirO = parser.accepts("cache", "Directory to cache remapped classes in. " +
+                "Unchanged classes and extra jars are reused from the cache on later runs").withRequiredArg().withValuesConvertedBy(new PathConverter());
         ArgumentAcceptingOptionSpec<Path> incrementalDecompilationO = parser.accepts("incremental-decompilation","Try to decompile " +
                 "incrementally. Specify a jar to compare the difference. Only works with decompilers of source type \"DIRECTORY\"")
                 .withRequiredArg().withValuesConvertedBy(new PathConverter(PathProperties.FILE_EXISTING));
@@ -161,15 +170,16 @@ public class MinecraftDecompilerCommandLine {
         if (options.has(regenVarNameO)) builder.regenerateVariableNames();
         if (options.has(dontIncludeOthersO)) builder.doNotIncludeOthers();
         options.valueOfOptional(namespaceTargetO).ifPresent(builder::namespaceTarget);
+        options.valueOfOptional(workersO).ifPresent(builder::workers);
+        options.valueOfOptional(cacheDirO).ifPresent(builder::cacheDir);
         options.valueOfOptional(outputO).ifPresent(builder::output);
         options.valueOfOptional(outputDecompO).ifPresent(builder::outputDecomp);
         builder.addExtraJars(options.valuesOf(extraJarsO));
         builder.addExtraClasses(options.valuesOf(extraClassesO));
 
         MinecraftDecompiler md = new MinecraftDecompiler(builder.build());
-        md.deobfuscate();
-
-        if (options.has(decompileO)) md.decompile(options.valueOf(decompileO), options.valueOf(incrementalDecompilationO));
+        if (options.has(decompileO)) md.deobfuscateAndDecompile(options.valueOf(decompileO), options.valueOf(incrementalDecompilationO));
+        else md.deobfuscate();
 
         LOGGER.info("Done. Thanks for using Minecraft Decompiler {}", MinecraftDecompilerCommandLine.class.getPackage().getImplementationVersion());
     }
@@ -0,0 +1,38 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.decompiler;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * A decompiler implements this interface can read classes from memory,
+ * so the classes don't need to be written to disk before decompiling.
+ */
+public interface IInMemoryDecompiler extends IDecompiler {
+    /**
+     * Decompile the given classes.
+     * @param classes Classes to decompile. Key is the entry name of the class(e.g. {@code a/b/C.class}), value is the bytes
+     * @param targetDir Path for output. The path is absolute and normalized.
+     */
+    void decompile(@NotNull Map<String, byte[]> classes, @NotNull Path targetDir) throws IOException;
+}
@@ -34,10 +34,12 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
 
 import static cn.maxpixel.mcdecompiler.common.app.Constants.FERNFLOWER_ABSTRACT_PARAMETER_NAMES;
 
-public class VineflowerDecompiler implements IExternalResourcesDecompiler, ILibRecommendedDecompiler {
+public class VineflowerDecompiler implements IExternalResourcesDecompiler, ILibRecommendedDecompiler, IInMemoryDecompiler {
     private static final String VERSION = Decompilers.getProperty("VineFlower-Version", "vineflower.version");
     private static final URI RESOURCE = URI.create("https://repo1.maven.org/maven2/org/vineflower/vineflower/" + VERSION + "/vineflower-" + VERSION + ".jar");
     private static final URI RESOURCE_HASH = URI.create("https://repo1.maven.org/maven2/org/vineflower/vineflower/" + VERSION + "/vineflower-" + VERSION + ".jar.sha1");
@@ -58,15 +60,28 @@ public class VineflowerDecompiler implements IExternalResourcesDecompiler, ILibR
     @Override
     public void decompile(@NotNull Path source, @NotNull Path targetDir) throws IOException {
         checkArgs(source, targetDir);
+        start(new Class<?>[] {File[].class, File[].class, File.class}, getSources(source.toFile()), libs, targetDir.toFile());
+    }
+
+    @Override
+    public void decompile(@NotNull Map<String, byte[]> classes, @NotNull Path targetDir) throws IOException {
+        if (!Files.isDirectory(targetDir)) throw new IllegalArgumentException("target must be directory");
+        start(new Class<?>[] {Map.class, File[].class, File[].class, File.class}, classes, getSources(), libs, targetDir.toFile());
+    }
+
+    private static File[] getSources(File... sources) {
+        Path abstractMethodParameterNames = Directories.TEMP_DIR.resolve(FERNFLOWER_ABSTRACT_PARAMETER_NAMES);
+        if (Files.notExists(abstractMethodParameterNames)) return sources;
+        File[] ret = Arrays.copyOf(sources, sources.length + 1);
+        ret[sources.length] = abstractMethodParameterNames.toAbsolutePath().normalize().toFile();
+        return ret;
+    }
+
+    private void start(Class<?>[] parameterTypes, Object... args) throws IOException {
         try (ExternalJarClassLoader cl = new ExternalJarClassLoader(new URL[] {decompilerJarPath.toUri().toURL()})) {
-            File[] sources;
-            Path abstractMethodParameterNames = Directories.TEMP_DIR.resolve(FERNFLOWER_ABSTRACT_PARAMETER_NAMES);
-            if (Files.exists(abstractMethodParameterNames))
-                sources = new File[] {source.toFile(), abstractMethodParameterNames.toAbsolutePath().normalize().toFile()};
-            else sources = new File[] {source.toFile()};
             Thread thread = (Thread) cl.loadClass("cn.maxpixel.mcdecompiler.decompiler.thread.VineFlowerDecompileThread")
-                    .getConstructor(File[].class, File[].class, File.class)
-                    .newInstance(sources, libs, targetDir.toFile());
+                    .getConstructor(parameterTypes)
+                    .newInstance(args);
             thread.start();
             while (thread.isAlive()) Thread.onSpinWait();
         } catch(ReflectiveOperationException e) {
@@ -20,20 +20,32 @@ package cn.maxpixel.mcdecompiler.decompiler.thread;
 
 import cn.maxpixel.rewh.logging.LogManager;
 import cn.maxpixel.rewh.logging.Logger;
+import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IContextSource;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
-import java.io.File;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 public class VineFlowerDecompileThread extends Thread {
     private static final Logger LOGGER = LogManager.getLogger("VineFlower");
 
+    private final Map<String, byte[]> classes;
     private final File[] sources;
     private final File[] libraries;
     private final File target;
 
     public VineFlowerDecompileThread(File[] sources, File[] libraries, File target) {
+        this(null, sources, libraries, target);
+    }
+
+    public VineFlowerDecompileThread(Map<String, byte[]> classes, File[] sources, File[] libraries, File target) {
         super("VineFlower-Decompile");
+        this.classes = classes;
         this.sources = sources;
         this.libraries = libraries;
         this.target = target;
@@ -47,8 +59,86 @@ public class VineFlowerDecompileThread extends Thread {
                 "bsm", "1"
         );
         ConsoleDecompiler decompiler = new AccessibleConsoleDecompiler(target, options, LOGGER);
-        for(File source : sources) decompiler.addSource(source);
-        for(File library : libraries) decompiler.addLibrary(library);
-        decompiler.decompileContext();
+        if (classes == null) {
+            for(File source : sources) decompiler.addSource(source);
+            for(File library : libraries) decompiler.addLibrary(library);
+            decompiler.decompileContext();
+        } else {// ConsoleDecompiler can't accept custom sources, so drive the engine directly and let it save the results
+            Fernflower engine = new Fernflower(decompiler, options, new ThreadedLogger(LOGGER));
+            try {
+                engine.addSource(new InMemoryContextSource(classes));
+                for(File source : sources) engine.addSource(source);
+                for(File library : libraries) engine.addLibrary(library);
+                engine.decompileContext();
+            } finally {
+                engine.clearContext();
+            }
+        }
+    }
+
+    private static final class InMemoryContextSource implements IContextSource {
+        private final Map<String, byte[]> classes;
+
+        private InMemoryContextSource(Map<String, byte[]> classes) {
+            this.classes = classes;
+        }
+
+        @Override
+        public String getName() {
+            return "in-memory classes";
+        }
+
+        @Override
+        public Entries getEntries() {
+            List<Entry> entries = new ArrayList<>(classes.size());
+            TreeSet<String> directories = new TreeSet<>();// Sorted so parents are created before children
+            for (String name : classes.keySet()) {
+                entries.add(Entry.parse(name.substring(0, name.length() - CLASS_SUFFIX.length())));
+                for (int i = name.indexOf('/'); i >= 0; i = name.indexOf('/', i + 1)) directories.add(name.substring(0, i));
+            }
+            return new Entries(entries, new ArrayList<>(directories), List.of());
+        }
+
+        @Override
+        public byte[] getClassBytes(String className) throws IOException {
+            byte[] bytes = classes.get(className.concat(CLASS_SUFFIX));
+            if (bytes == null) throw new FileNotFoundException(className);
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream(String resource) throws IOException {
+            byte[] bytes = classes.get(resource);
+            if (bytes == null) throw new FileNotFoundException(resource);
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public IOutputSink createOutputSink(IResultSaver saver) {
+            return new IOutputSink() {
+                @Override
+                public void begin() {
+                    saver.saveFolder("");
+                }
+
+                @Override
+                public void acceptClass(String qualifiedName, String fileName, String content, int[] mapping) {
+                    saver.saveClassFile("", qualifiedName, fileName, content, mapping);
+                }
+
+                @Override
+                public void acceptDirectory(String directory) {
+                    saver.saveFolder(directory);
+                }
+
+                @Override
+                public void acceptOther(String path) {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
     }
-}
\ No newline at end of file
+}
@@ -19,8 +19,8 @@
 package cn.maxpixel.mcdecompiler.mapping;
 
 import cn.maxpixel.mcdecompiler.mapping.component.Component;
+import cn.maxpixel.mcdecompiler.mapping.component.ComponentStore;
 import cn.maxpixel.mcdecompiler.mapping.component.Owned;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectCollection;
 import org.jetbrains.annotations.NotNull;
 
@@ -34,7 +34,7 @@ import java.util.function.Supplier;
  * @implNote This class should only be extended, so it is abstract
  */
 public abstract class Mapping implements NameGetter {
-    protected final Object2ObjectOpenHashMap<@NotNull Class<? extends Component>, Component> components = new Object2ObjectOpenHashMap<>();
+    private final ComponentStore components = new ComponentStore();
 
     /**
      * Constructor
@@ -42,7 +42,7 @@ public abstract class Mapping implements NameGetter {
      */
     protected Mapping(@NotNull Component @NotNull ... components) {
         for (@NotNull Component component : components) {
-            this.components.put(component.getClass(), component);
+            this.components.put(component);
         }
     }
 
@@ -124,7 +124,7 @@ public abstract class Mapping implements NameGetter {
      * @param component The component to add or replace with
      */
     public void addComponent(@NotNull Component component) {
-        this.components.put(component.getClass(), component);
+        this.components.put(component);
     }
 
     /**
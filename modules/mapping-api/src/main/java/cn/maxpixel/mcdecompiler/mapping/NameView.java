@@ -0,0 +1,150 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping;
+
+import cn.maxpixel.mcdecompiler.mapping.util.Utils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * A view of the names of mappings in a direction or between namespaces.<br>
+ * Names are resolved through the view instead of the state stored in each mapping, so the mappings are never modified.
+ * Switching directions or namespaces costs nothing, and the same mappings can be viewed in different ways at the same time.
+ */
+public interface NameView {
+    /**
+     * The view of the names the mappings currently have
+     */
+    NameView CURRENT = new Current();
+
+    String getUnmappedName(@NotNull Mapping mapping);
+
+    String getMappedName(@NotNull Mapping mapping);
+
+    /**
+     * @return true if the unmapped and the mapped side of the {@link PairedMapping}s are swapped in this view
+     */
+    default boolean isReversed() {
+        return false;
+    }
+
+    /**
+     * @return A view with the unmapped and the mapped names swapped
+     */
+    default @NotNull NameView reverse() {
+        return new Reversed(this);
+    }
+
+    /**
+     * @param unmappedNamespace Namespace of the unmapped names
+     * @param mappedNamespace Namespace of the mapped names
+     * @param fallbackNamespace Namespace of the names used when a mapped name is blank, or null to not fall back
+     * @return A view of {@link NamespacedMapping}s
+     */
+    static @NotNull Namespaced namespaced(@NotNull String unmappedNamespace, @NotNull String mappedNamespace,
+                                          @Nullable String fallbackNamespace) {
+        return new Namespaced(unmappedNamespace, mappedNamespace, fallbackNamespace);
+    }
+
+    record Current() implements NameView {
+        @Override
+        public String getUnmappedName(@NotNull Mapping mapping) {
+            return mapping.getUnmappedName();
+        }
+
+        @Override
+        public String getMappedName(@NotNull Mapping mapping) {
+            return mapping.getMappedName();
+        }
+    }
+
+    record Reversed(@NotNull NameView view) implements NameView {
+        public Reversed {
+            Objects.requireNonNull(view);
+        }
+
+        @Override
+        public String getUnmappedName(@NotNull Mapping mapping) {
+            return view.getMappedName(mapping);
+        }
+
+        @Override
+        public String getMappedName(@NotNull Mapping mapping) {
+            return view.getUnmappedName(mapping);
+        }
+
+        @Override
+        public boolean isReversed() {
+            return !view.isReversed();
+        }
+
+        @Override
+        public @NotNull NameView reverse() {
+            return view;
+        }
+    }
+
+    /**
+     * View of {@link NamespacedMapping}s. Names are resolved the same way as {@link NamespacedMapping#getMappedName()}
+     * and {@link NamespacedMapping#getUnmappedName()} do
+     */
+    record Namespaced(@NotNull String unmappedNamespace, @NotNull String mappedNamespace,
+                      @Nullable String fallbackNamespace) implements NameView {
+        public Namespaced {
+            Objects.requireNonNull(unmappedNamespace);
+            Objects.requireNonNull(mappedNamespace);
+        }
+
+        @Override
+        public String getUnmappedName(@NotNull Mapping mapping) {
+            return ((NamespacedMapping) mapping).getName(unmappedNamespace);
+        }
+
+        @Override
+        public String getMappedName(@NotNull Mapping mapping) {
+            NamespacedMapping m = (NamespacedMapping) mapping;
+            String name = m.getName(mappedNamespace);
+            if (fallbackNamespace == null || Utils.isStringNotBlank(name)) return name;
+            return m.getName(fallbackNamespace);
+        }
+
+        @Override
+        public @NotNull Namespaced reverse() {
+            return new Namespaced(mappedNamespace, unmappedNamespace, fallbackNamespace);
+        }
+
+        /**
+         * Gets the view which sees the mappings as if they were swapped with {@link NamespacedMapping#swap}
+         * @param fromNamespace The first namespace
+         * @param toNamespace The second namespace
+         * @return The view
+         */
+        public @NotNull Namespaced swap(@NotNull String fromNamespace, @NotNull String toNamespace) {
+            return new Namespaced(swap(unmappedNamespace, fromNamespace, toNamespace), swap(mappedNamespace, fromNamespace, toNamespace),
+                    fallbackNamespace == null ? null : swap(fallbackNamespace, fromNamespace, toNamespace));
+        }
+
+        private static String swap(String namespace, String fromNamespace, String toNamespace) {
+            if (namespace.equals(fromNamespace)) return toNamespace;
+            return namespace.equals(toNamespace) ? fromNamespace : namespace;
+        }
+    }
+}
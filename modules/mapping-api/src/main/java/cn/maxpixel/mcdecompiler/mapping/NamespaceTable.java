@@ -0,0 +1,110 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable ordered list of distinct namespaces, which gives every namespace an ordinal.<br>
+ * Tables are canonicalized, so all the mappings read with the same namespaces(e.g. the namespaces of a
+ * {@link cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait}) share one table, and the ordinals are the same as
+ * the order of the namespaces. The canonical tables are weakly held, so a table no longer used by any mapping can
+ * be collected.
+ */
+final class NamespaceTable {
+    private static final ConcurrentHashMap<List<String>, Ref> TABLES = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<NamespaceTable> QUEUE = new ReferenceQueue<>();
+    static final NamespaceTable EMPTY = of(new String[0]);
+
+    private final String[] namespaces;
+
+    private NamespaceTable(String[] namespaces) {
+        this.namespaces = namespaces;
+    }
+
+    /**
+     * Gets the table of the given namespaces. Duplicated namespaces only appear once in the table
+     * @param namespaces The namespaces
+     * @return The canonical table
+     */
+    static NamespaceTable of(String[] namespaces) {
+        NamespaceTable table = get(Arrays.asList(namespaces));
+        if (table != null) return table;
+        String[] distinct = Arrays.stream(namespaces).map(Objects::requireNonNull).distinct().toArray(String[]::new);
+        List<String> key = List.of(distinct);
+        synchronized (TABLES) {
+            for (Ref ref; (ref = (Ref) QUEUE.poll()) != null; ) TABLES.remove(ref.key, ref);
+            table = get(key);
+            if (table != null) return table;
+            table = new NamespaceTable(distinct);
+            TABLES.put(key, new Ref(table, key));
+            return table;
+        }
+    }
+
+    private static NamespaceTable get(List<String> namespaces) {
+        Ref ref = TABLES.get(namespaces);
+        return ref == null ? null : ref.get();
+    }
+
+    /**
+     * @return The table with the namespace appended, or this table if the namespace is already present
+     */
+    NamespaceTable with(String namespace) {
+        if (indexOf(namespace) >= 0) return this;
+        String[] ns = Arrays.copyOf(namespaces, namespaces.length + 1);
+        ns[namespaces.length] = Objects.requireNonNull(namespace);
+        return of(ns);
+    }
+
+    /**
+     * @return Ordinal of the namespace, or -1 if absent
+     */
+    int indexOf(String namespace) {
+        for (int i = 0; i < namespaces.length; i++) {// Namespaces usually come from the same strings
+            if (namespaces[i] == namespace) return i;
+        }
+        for (int i = 0; i < namespaces.length; i++) {
+            if (namespaces[i].equals(namespace)) return i;
+        }
+        return -1;
+    }
+
+    String get(int ordinal) {
+        return namespaces[ordinal];
+    }
+
+    int size() {
+        return namespaces.length;
+    }
+
+    private static final class Ref extends WeakReference<NamespaceTable> {
+        private final List<String> key;
+
+        private Ref(NamespaceTable table, List<String> key) {
+            super(table, QUEUE);
+            this.key = key;
+        }
+    }
+}
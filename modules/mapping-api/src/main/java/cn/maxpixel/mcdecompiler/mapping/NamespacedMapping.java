@@ -21,12 +21,15 @@ package cn.maxpixel.mcdecompiler.mapping;
 import cn.maxpixel.mcdecompiler.mapping.component.Component;
 import cn.maxpixel.mcdecompiler.mapping.component.Owned;
 import cn.maxpixel.mcdecompiler.mapping.util.Utils;
-import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.objects.ObjectSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
@@ -42,10 +45,15 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
     public static final String INTERMEDIARY = "intermediary";
     public static final String YARN = "named";
 
-    private String unmappedNamespace;
-    private String mappedNamespace;
-    private String fallbackNamespace;
-    private final Object2ObjectLinkedOpenHashMap<String, String> names = new Object2ObjectLinkedOpenHashMap<>();
+    private static final String[] NO_NAMES = new String[0];
+
+    // Names are indexed by the ordinals of the namespaces in the table. The array may be shorter than the table,
+    // and null means there is no name under the namespace
+    private NamespaceTable table = NamespaceTable.EMPTY;
+    private String[] names = NO_NAMES;
+    private int unmappedNamespace = -1;
+    private int mappedNamespace = -1;
+    private int fallbackNamespace = -1;
 
     /**
      * Constructor
@@ -53,8 +61,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @param names A map keyed with namespace and valued with name
      */
     public NamespacedMapping(Map<String, String> names) {
-        if (names.containsKey(null)) throw new IllegalArgumentException();
-        this.names.putAll(names);
+        putAll(names);
     }
 
     /**
@@ -64,7 +71,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @param name The name
      */
     public NamespacedMapping(String namespace, String name) {
-        this.names.put(Objects.requireNonNull(namespace), name);
+        put(new String[] { Objects.requireNonNull(namespace) }, new String[] { name }, 0);
     }
 
     /**
@@ -75,9 +82,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      */
     public NamespacedMapping(String[] namespaces, String[] names) {
         if (namespaces.length != names.length) throw new IllegalArgumentException();
-        for (int i = 0; i < namespaces.length; i++) {
-            this.names.put(Objects.requireNonNull(namespaces[i]), names[i]);
-        }
+        put(namespaces, names, 0);
     }
 
     /**
@@ -96,9 +101,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
         // namespaces.length != (names.length - Objects.checkIndex(nameStart, names.length))
         if (names.length - namespaces.length != Objects.checkIndex(nameStart, names.length))
             throw new IllegalArgumentException();
-        for (int i = 0; i < namespaces.length; i++) {
-            this.names.put(Objects.requireNonNull(namespaces[i]), names[i + nameStart]);
-        }
+        put(namespaces, names, nameStart);
     }
 
     /**
@@ -108,9 +111,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @param name The name
      */
     public NamespacedMapping(String[] namespaces, String name) {
-        for (String namespace : namespaces) {
-            this.names.put(Objects.requireNonNull(namespace), name);
-        }
+        put(namespaces, name);
     }
 
     /**
@@ -121,8 +122,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      */
     public NamespacedMapping(Map<String, String> names, Component... components) {
         super(components);
-        if (names.containsKey(null)) throw new IllegalArgumentException();
-        this.names.putAll(names);
+        putAll(names);
     }
 
     /**
@@ -134,7 +134,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      */
     public NamespacedMapping(String namespace, String name, Component... components) {
         super(components);
-        this.names.put(Objects.requireNonNull(namespace), name);
+        put(new String[] { Objects.requireNonNull(namespace) }, new String[] { name }, 0);
     }
 
     /**
@@ -147,9 +147,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
     public NamespacedMapping(String[] namespaces, String[] names, Component... components) {
         super(components);
         if (namespaces.length != names.length) throw new IllegalArgumentException();
-        for (int i = 0; i < namespaces.length; i++) {
-            this.names.put(Objects.requireNonNull(namespaces[i]), names[i]);
-        }
+        put(namespaces, names, 0);
     }
 
     /**
@@ -174,9 +172,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
         // namespaces.length != (names.length - Objects.checkIndex(nameStart, names.length))
         if (names.length - namespaces.length != Objects.checkIndex(nameStart, names.length))
             throw new IllegalArgumentException();
-        for (int i = 0; i < namespaces.length; i++) {
-            this.names.put(Objects.requireNonNull(namespaces[i]), names[i + nameStart]);
-        }
+        put(namespaces, names, nameStart);
     }
 
     /**
@@ -188,9 +184,48 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      */
     public NamespacedMapping(String[] namespaces, String name, Component... components) {
         super(components);
-        for (String namespace : namespaces) {
-            this.names.put(Objects.requireNonNull(namespace), name);
+        put(namespaces, name);
+    }
+
+    private void put(String[] namespaces, String[] names, int nameStart) {
+        this.table = NamespaceTable.of(namespaces);
+        if (table.size() == namespaces.length) {// No duplicated namespaces, so the ordinals are the indexes
+            this.names = Arrays.copyOfRange(names, nameStart, nameStart + namespaces.length);
+        } else {
+            this.names = new String[table.size()];
+            for (int i = 0; i < namespaces.length; i++) this.names[table.indexOf(namespaces[i])] = names[i + nameStart];
+        }
+    }
+
+    private void put(String[] namespaces, String name) {
+        this.table = NamespaceTable.of(namespaces);
+        this.names = new String[table.size()];
+        Arrays.fill(this.names, name);
+    }
+
+    private void putAll(Map<String, String> names) {
+        if (names.containsKey(null)) throw new IllegalArgumentException();
+        String[] namespaces = names.keySet().toArray(new String[0]);
+        String[] values = new String[namespaces.length];
+        for (int i = 0; i < namespaces.length; i++) values[i] = names.get(namespaces[i]);
+        put(namespaces, values, 0);
+    }
+
+    private int ordinal(String namespace) {
+        int ordinal = table.indexOf(Objects.requireNonNull(namespace));
+        if (ordinal < 0) {
+            this.table = table.with(namespace);
+            ordinal = table.indexOf(namespace);
         }
+        return ordinal;
+    }
+
+    private String name(int ordinal) {
+        return ordinal >= 0 && ordinal < names.length ? names[ordinal] : null;
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal >= names.length) names = Arrays.copyOf(names, table.size());
     }
 
     @SuppressWarnings("unchecked")
@@ -202,21 +237,68 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
     /**
      * Gets the namespaces this mapping currently has
      *
-     * @apiNote Removing values or clearing would also change the names map
+     * @apiNote Removing values or clearing would also remove the names
      * @return The namespaces this mapping currently has
      */
     public @NotNull ObjectSet<String> getNamespaces() {
-        return names.keySet();
+        return new AbstractObjectSet<>() {
+            @Override
+            public @NotNull ObjectIterator<String> iterator() {
+                return new ObjectIterator<>() {
+                    private int next = advance(0);
+                    private int last = -1;
+
+                    private int advance(int from) {
+                        while (from < names.length && names[from] == null) from++;
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < names.length;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        last = next;
+                        next = advance(next + 1);
+                        return table.get(last);
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) throw new IllegalStateException();
+                        names[last] = null;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (String name : names) if (name != null) size++;
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof String namespace && NamespacedMapping.this.contains(namespace);
+            }
+        };
     }
 
     /**
      * Sets the name under the given namespace
      *
      * @param namespace The namespace the name is under
-     * @param name The name to set
+     * @param name The name to set, or null to remove the name
      */
     public void setName(@NotNull String namespace, @Nullable String name) {
-        names.put(Objects.requireNonNull(namespace), name);
+        int ordinal = ordinal(namespace);
+        ensureCapacity(ordinal);
+        names[ordinal] = name;
     }
 
     /**
@@ -226,7 +308,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @return The name under the given namespace
      */
     public String getName(@NotNull String namespace) {
-        return names.get(Objects.requireNonNull(namespace));
+        return name(table.indexOf(Objects.requireNonNull(namespace)));
     }
 
     /**
@@ -237,7 +319,8 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @return The name under the given namespace if exists, otherwise the given default value
      */
     public String getName(@NotNull String namespace, @Nullable String defaultValue) {
-        return names.getOrDefault(Objects.requireNonNull(namespace), defaultValue);
+        String name = getName(namespace);
+        return name != null ? name : defaultValue;
     }
 
     /**
@@ -248,7 +331,11 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @return this mapping
      */
     public NamespacedMapping swap(@NotNull String fromNamespace, @NotNull String toNamespace) {
-        names.put(Objects.requireNonNull(toNamespace), names.put(Objects.requireNonNull(fromNamespace), names.get(toNamespace)));
+        int from = ordinal(fromNamespace), to = ordinal(toNamespace);
+        ensureCapacity(Math.max(from, to));
+        String temp = names[from];
+        names[from] = names[to];
+        names[to] = temp;
         for (Component component : getComponents()) {
             if (component instanceof Component.Swappable s) s.swap(fromNamespace, toNamespace);
         }
@@ -262,36 +349,36 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
      * @return if this mapping contains the given namespace
      */
     public boolean contains(@NotNull String namespace) {
-        return names.containsKey(Objects.requireNonNull(namespace));
+        return getName(namespace) != null;
     }
 
     @Override
     public String getUnmappedName() {
-        if (unmappedNamespace == null) throw new IllegalStateException("Set a namespace for unmapped name first");
-        return names.get(unmappedNamespace);
+        if (unmappedNamespace < 0) throw new IllegalStateException("Set a namespace for unmapped name first");
+        return name(unmappedNamespace);
     }
 
     @Override
     public String getMappedName() {
-        if (mappedNamespace == null) throw new IllegalStateException("Set a namespace for mapped name first");
-        var name = names.get(mappedNamespace);
-        if (fallbackNamespace == null || Utils.isStringNotBlank(name)) return name;
-        return names.get(fallbackNamespace);
+        if (mappedNamespace < 0) throw new IllegalStateException("Set a namespace for mapped name first");
+        var name = name(mappedNamespace);
+        if (fallbackNamespace < 0 || Utils.isStringNotBlank(name)) return name;
+        return name(fallbackNamespace);
     }
 
     @Override
     public String getUnmappedNamespace() {
-        return unmappedNamespace;
+        return unmappedNamespace < 0 ? null : table.get(unmappedNamespace);
     }
 
     @Override
     public String getMappedNamespace() {
-        return mappedNamespace;
+        return mappedNamespace < 0 ? null : table.get(mappedNamespace);
     }
 
     @Override
     public void setUnmappedNamespace(@NotNull String namespace) {
-        this.unmappedNamespace = Objects.requireNonNull(namespace);
+        this.unmappedNamespace = ordinal(namespace);
         for (Component component : getComponents()) {
             if (component instanceof NameGetter.Namespace n) n.setUnmappedNamespace(namespace);
         }
@@ -299,7 +386,7 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
 
     @Override
     public void setMappedNamespace(@NotNull String namespace) {
-        this.mappedNamespace = Objects.requireNonNull(namespace);
+        this.mappedNamespace = ordinal(namespace);
         for (Component component : getComponents()) {
             if (component instanceof NameGetter.Namespace n) n.setMappedNamespace(namespace);
         }
@@ -307,34 +394,53 @@ public class NamespacedMapping extends Mapping implements NameGetter.Namespace {
 
     @Override
     public String getFallbackNamespace() {
-        return fallbackNamespace;
+        return fallbackNamespace < 0 ? null : table.get(fallbackNamespace);
     }
 
     @Override
     public void setFallbackNamespace(@NotNull String namespace) {
-        this.fallbackNamespace = Objects.requireNonNull(namespace);
+        this.fallbackNamespace = ordinal(namespace);
         for (Component component : getComponents()) {
             if (component instanceof NameGetter.Namespace n) n.setFallbackNamespace(namespace);
         }
     }
 
-    /* Auto-generated equals, hashCode and toString methods */
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof NamespacedMapping that)) return false;
         if (!super.equals(o)) return false;
-        return names.equals(that.names);
+        if (table == that.table) {
+            for (int i = 0, len = Math.max(names.length, that.names.length); i < len; i++) {
+                if (!Objects.equals(name(i), that.name(i))) return false;
+            }
+            return true;
+        }
+        int size = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) continue;
+            if (!names[i].equals(that.getName(table.get(i)))) return false;
+            size++;
+        }
+        return size == that.getNamespaces().size();
     }
 
     @Override
     public int hashCode() {
-        return 31 * super.hashCode() + Objects.hashCode(names);
+        int hash = 0;// Same as the hash code of a map of the names
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) hash += table.get(i).hashCode() ^ names[i].hashCode();
+        }
+        return 31 * super.hashCode() + hash;
     }
 
     @Override
     public String toString() {
-        return "NamespacedMapping{" +
-                "names=" + names +
-                "} " + super.toString();
+        StringBuilder sb = new StringBuilder("NamespacedMapping{names={");
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == null) continue;
+            if (sb.charAt(sb.length() - 1) != '{') sb.append(", ");
+            sb.append(table.get(i)).append('=').append(names[i]);
+        }
+        return sb.append("}} ").append(super.toString()).toString();
     }
-}
\ No newline at end of file
+}
@@ -19,9 +19,9 @@
 package cn.maxpixel.mcdecompiler.mapping;
 
 import cn.maxpixel.mcdecompiler.mapping.component.Component;
+import cn.maxpixel.mcdecompiler.mapping.component.ComponentStore;
 import cn.maxpixel.mcdecompiler.mapping.component.Owned;
 import cn.maxpixel.mcdecompiler.mapping.util.Validation;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 
 import java.util.Objects;
@@ -117,7 +117,7 @@ public class PairedMapping extends Mapping {
         unmappedName = mappedName;
         mappedName = temp;
         ObjectOpenHashSet<Class<? extends Component>> skipped = new ObjectOpenHashSet<>();
-        Object2ObjectOpenHashMap<Class<? extends Component>, Component> toAdd = new Object2ObjectOpenHashMap<>();
+        ComponentStore toAdd = new ComponentStore();
         var it = getComponents().iterator();
         while (it.hasNext()) {
             Component component = it.next();
@@ -131,12 +131,12 @@ public class PairedMapping extends Mapping {
                     c.reverse(targetComponent);
                 } else {
                     var converted = c.convert();
-                    toAdd.put(converted.getClass(), converted);
+                    toAdd.put(converted);
                     it.remove();
                 }
             }
         }
-        components.putAll(toAdd);
+        for (Component component : toAdd.values()) addComponent(component);
         return this;
     }
 
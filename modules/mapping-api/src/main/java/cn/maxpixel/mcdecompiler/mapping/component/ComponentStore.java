@@ -0,0 +1,212 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.component;
+
+import it.unimi.dsi.fastutil.objects.AbstractObjectCollection;
+import it.unimi.dsi.fastutil.objects.Object2ObjectArrayMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
+import it.unimi.dsi.fastutil.objects.ObjectCollection;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Storage of the components of a mapping, keyed by the component classes.<br>
+ * The built-in components are stored in fixed slots, and other components are stored in a small map which is only
+ * created when needed. Most mappings only have the built-in components, so this is much smaller than a hash map.
+ */
+public final class ComponentStore {
+    private static final int SLOTS = 9;
+
+    private final Component[] slots = new Component[SLOTS];
+    private Object2ObjectArrayMap<Class<? extends Component>, Component> others;
+
+    private static int slot(Class<?> type) {
+        if (type == Descriptor.Unmapped.class) return 0;
+        if (type == Descriptor.Mapped.class) return 1;
+        if (type == Descriptor.Namespaced.class) return 2;
+        if (type == Owned.class) return 3;
+        if (type == StaticIdentifiable.class) return 4;
+        if (type == LocalVariableTable.Paired.class) return 5;
+        if (type == LocalVariableTable.Namespaced.class) return 6;
+        if (type == Documented.class) return 7;
+        if (type == LineNumber.class) return 8;
+        return -1;
+    }
+
+    private static Class<? extends Component> typeOf(int slot) {
+        return switch (slot) {
+            case 0 -> Descriptor.Unmapped.class;
+            case 1 -> Descriptor.Mapped.class;
+            case 2 -> Descriptor.Namespaced.class;
+            case 3 -> Owned.class;
+            case 4 -> StaticIdentifiable.class;
+            case 5 -> LocalVariableTable.Paired.class;
+            case 6 -> LocalVariableTable.Namespaced.class;
+            case 7 -> Documented.class;
+            case 8 -> LineNumber.class;
+            default -> throw new IndexOutOfBoundsException(slot);
+        };
+    }
+
+    public @Nullable Component get(@NotNull Class<? extends Component> type) {
+        int slot = slot(type);
+        if (slot >= 0) return slots[slot];
+        return others == null ? null : others.get(type);
+    }
+
+    public boolean containsKey(@NotNull Class<? extends Component> type) {
+        return get(type) != null;
+    }
+
+    /**
+     * Puts the component with its class as the key
+     * @param component The component
+     */
+    public void put(@NotNull Component component) {
+        put(component.getClass(), component);
+    }
+
+    public void put(@NotNull Class<? extends Component> type, @NotNull Component component) {
+        Objects.requireNonNull(component);
+        int slot = slot(type);
+        if (slot >= 0) slots[slot] = component;
+        else {
+            if (others == null) others = new Object2ObjectArrayMap<>(1);
+            others.put(type, component);
+        }
+    }
+
+    public void putAll(@NotNull ComponentStore store) {
+        for (int i = 0; i < SLOTS; i++) {
+            if (store.slots[i] != null) slots[i] = store.slots[i];
+        }
+        if (store.others != null) for (var entry : Object2ObjectMaps.fastIterable(store.others)) put(entry.getKey(), entry.getValue());
+    }
+
+    public void remove(@NotNull Class<? extends Component> type) {
+        int slot = slot(type);
+        if (slot >= 0) slots[slot] = null;
+        else if (others != null) others.remove(type);
+    }
+
+    public int size() {
+        int size = others == null ? 0 : others.size();
+        for (Component c : slots) if (c != null) size++;
+        return size;
+    }
+
+    /**
+     * @return A view of the components. Supports removal through the iterator
+     */
+    public @NotNull ObjectCollection<Component> values() {
+        return new AbstractObjectCollection<>() {
+            @Override
+            public @NotNull ObjectIterator<Component> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return ComponentStore.this.size();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ComponentStore that)) return false;
+        for (int i = 0; i < SLOTS; i++) {
+            if (!Objects.equals(slots[i], that.slots[i])) return false;
+        }
+        boolean empty = others == null || others.isEmpty();
+        boolean thatEmpty = that.others == null || that.others.isEmpty();
+        if (empty || thatEmpty) return empty == thatEmpty;
+        return others.equals(that.others);
+    }
+
+    @Override
+    public int hashCode() {// Same as the hash code of a map
+        int hash = others == null ? 0 : others.hashCode();
+        for (int i = 0; i < SLOTS; i++) {
+            if (slots[i] != null) hash += typeOf(i).hashCode() ^ slots[i].hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < SLOTS; i++) {
+            if (slots[i] == null) continue;
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(typeOf(i).getName()).append('=').append(slots[i]);
+        }
+        if (others != null) for (var entry : Object2ObjectMaps.fastIterable(others)) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(entry.getKey().getName()).append('=').append(entry.getValue());
+        }
+        return sb.append('}').toString();
+    }
+
+    private final class ValueIterator implements ObjectIterator<Component> {
+        private int next = advance(0);
+        private int last = -1;
+        private ObjectIterator<Component> othersIterator;
+
+        private int advance(int from) {
+            while (from < SLOTS && slots[from] == null) from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < SLOTS) return true;
+            if (othersIterator == null) {
+                if (others == null) return false;
+                othersIterator = others.values().iterator();
+            }
+            return othersIterator.hasNext();
+        }
+
+        @Override
+        public Component next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            if (next < SLOTS) {
+                last = next;
+                next = advance(next + 1);
+                return slots[last];
+            }
+            last = SLOTS;
+            return othersIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            if (last < SLOTS) slots[last] = null;
+            else othersIterator.remove();
+            last = -1;
+        }
+    }
+}
@@ -23,9 +23,11 @@ import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.MappingCollection;
 import cn.maxpixel.mcdecompiler.mapping.collection.UniqueMapping;
 import cn.maxpixel.mcdecompiler.mapping.generator.MappingGenerator;
+import cn.maxpixel.mcdecompiler.mapping.processor.LineCursor;
 import cn.maxpixel.mcdecompiler.mapping.processor.MappingProcessor;
+import cn.maxpixel.mcdecompiler.mapping.processor.ParseProfile;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import cn.maxpixel.mcdecompiler.mapping.util.Utils;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
 import org.jetbrains.annotations.NotNull;
 
@@ -33,6 +35,8 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
 /**
@@ -74,22 +78,42 @@ public interface MappingFormat<M extends Mapping, C extends MappingCollection<M>
     @NotNull MappingGenerator<M, C> getGenerator();
 
     default @NotNull C read(@NotNull BufferedReader reader) {
+        return read(reader, new StringPool());
+    }
+
+    /**
+     * Reads the mappings, interning repeated strings in the pool
+     * @param reader The reader. Closed after reading
+     * @param pool The pool. Can be shared by several reads, and tells how many bytes are saved
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull BufferedReader reader, @NotNull StringPool pool) {
+        return read(reader, pool, ParseProfile.ALL);
+    }
+
+    /**
+     * Reads the mappings, only processing the components in the profile
+     * @param reader The reader. Closed after reading
+     * @param profile The components needed, e.g. {@link ParseProfile#REMAP} if the mappings are only used to remap
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull BufferedReader reader, @NotNull ParseProfile profile) {
+        return read(reader, new StringPool(), profile);
+    }
+
+    /**
+     * Reads the mappings, interning repeated strings in the pool and only processing the components in the profile
+     * @param reader The reader. Closed after reading
+     * @param pool The pool. Can be shared by several reads, and tells how many bytes are saved
+     * @param profile The components needed
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull BufferedReader reader, @NotNull StringPool pool, @NotNull ParseProfile profile) {
         Objects.requireNonNull(reader);
+        Objects.requireNonNull(pool);
+        Objects.requireNonNull(profile);
         try (reader) {
-            ObjectArrayList<String> lines = reader.lines().map(s -> {
-                if (s.isBlank()) return null;
-
-                char comment = getCommentChar();
-                if (comment != '\0') {
-                    if (s.charAt(0) == comment) return null;
-                    int index = s.indexOf(comment);
-                    if (index > 0) return s.substring(0, index);
-                    else if (index == 0) return null;
-                }
-
-                return s;
-            }).filter(Objects::nonNull).collect(ObjectArrayList.toList());
-            return getProcessor().process(lines);
+            return getProcessor().process(LineCursor.of(reader, getCommentChar()), pool, profile);
         } catch (IOException e) {
             throw Utils.wrapInRuntime(e);
         }
@@ -103,28 +127,63 @@ public interface MappingFormat<M extends Mapping, C extends MappingCollection<M>
         return read(new InputStreamReader(is, StandardCharsets.UTF_8));
     }
 
+    /**
+     * Reads the mapping file
+     * @param file The mapping file, in UTF-8
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull Path file) {
+        return read(file, new StringPool());
+    }
+
+    /**
+     * Reads the mapping file, interning repeated strings in the pool
+     * @param file The mapping file, in UTF-8
+     * @param pool The pool. Can be shared by several reads, and tells how many bytes are saved
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull Path file, @NotNull StringPool pool) {
+        return read(file, pool, ParseProfile.ALL);
+    }
+
+    /**
+     * Reads the mapping file, only processing the components in the profile
+     * @param file The mapping file, in UTF-8
+     * @param profile The components needed, e.g. {@link ParseProfile#REMAP} if the mappings are only used to remap
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull Path file, @NotNull ParseProfile profile) {
+        return read(file, new StringPool(), profile);
+    }
+
+    /**
+     * Reads the mapping file, interning repeated strings in the pool and only processing the components in the profile.
+     * Formats may override this to read the file in a faster way
+     * @param file The mapping file, in UTF-8
+     * @param pool The pool. Can be shared by several reads, and tells how many bytes are saved
+     * @param profile The components needed
+     * @return The mappings
+     */
+    default @NotNull C read(@NotNull Path file, @NotNull StringPool pool, @NotNull ParseProfile profile) {
+        try {
+            return read(Files.newBufferedReader(file), pool, profile);
+        } catch (IOException e) {
+            throw Utils.wrapInRuntime(e);
+        }
+    }
+
     default @NotNull C read(@NotNull BufferedReader @NotNull ... readers) {
-        @SuppressWarnings("unchecked")
-        ObjectArrayList<String>[] contents = Utils.mapArray(readers, ObjectArrayList[]::new, reader -> {
-            try (reader) {
-                return reader.lines().map(s -> {
-                    if (s.isBlank()) return null;
-
-                    char comment = getCommentChar();
-                    if (comment != '\0') {
-                        if (s.charAt(0) == comment) return null;
-                        int index = s.indexOf(comment);
-                        if (index > 0) return s.substring(0, index);
-                        else if (index == 0) return null;
-                    }
-
-                    return s;
-                }).filter(Objects::nonNull).collect(ObjectArrayList.toList());
-            } catch (IOException e) {
-                throw Utils.wrapInRuntime(e);
+        try {
+            return getProcessor().process(Utils.mapArray(readers, LineCursor[]::new, reader -> LineCursor.of(reader, getCommentChar())));
+        } finally {
+            for (BufferedReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw Utils.wrapInRuntime(e);
+                }
             }
-        });
-        return getProcessor().process(contents);
+        }
     }
 
     default @NotNull C read(@NotNull Reader @NotNull ... reader) {
@@ -19,10 +19,19 @@
 package cn.maxpixel.mcdecompiler.mapping.format;
 
 import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.generator.ProguardMappingGenerator;
+import cn.maxpixel.mcdecompiler.mapping.processor.ParseProfile;
 import cn.maxpixel.mcdecompiler.mapping.processor.ProguardMappingProcessor;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
+import cn.maxpixel.mcdecompiler.mapping.util.Utils;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
 public enum ProguardMappingFormat implements MappingFormat.Classified<PairedMapping> {
     INSTANCE;
 
@@ -40,4 +49,17 @@ public enum ProguardMappingFormat implements MappingFormat.Classified<PairedMapp
     public @NotNull ProguardMappingGenerator getGenerator() {
         return ProguardMappingGenerator.INSTANCE;
     }
+
+    /**
+     * Memory-maps the file and processes the bytes directly
+     * @see ProguardMappingProcessor#process(java.nio.ByteBuffer, StringPool, ParseProfile)
+     */
+    @Override
+    public @NotNull ClassifiedMapping<PairedMapping> read(@NotNull Path file, @NotNull StringPool pool, @NotNull ParseProfile profile) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return getProcessor().process(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), pool, profile);
+        } catch (IOException e) {
+            throw Utils.wrapInRuntime(e);
+        }
+    }
 }
\ No newline at end of file
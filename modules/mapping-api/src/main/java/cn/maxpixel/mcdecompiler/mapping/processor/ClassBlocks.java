@@ -0,0 +1,87 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.processor;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Processes formats made of independent class blocks(a class line followed by the lines of its members) in parallel.<br>
+ * The lines are split into chunks on class block boundaries, and the chunks are processed on the common {@link ForkJoinPool}.
+ * The results are added in source order. Only a few chunks are pending at the same time, so lines read from a reader
+ * are still not all held in memory.
+ */
+final class ClassBlocks {
+    /**
+     * Whether to process in parallel by default, which is whether processing in parallel may be faster than processing
+     * in sequence
+     */
+    static final boolean PARALLEL = Runtime.getRuntime().availableProcessors() > 1;
+    private static final int CHUNK_LINES = 8192;
+
+    private ClassBlocks() {
+        throw new AssertionError("No instances");
+    }
+
+    /**
+     * Processes the remaining lines
+     * @param content The content. The first line should start a class block
+     * @param blockStart Tests if the line starts a class block
+     * @param processor Processes the lines of some whole class blocks. Called from different threads
+     * @param out The results are added to this list
+     */
+    static <T> void process(LineCursor content, Predicate<String> blockStart, Function<LineCursor, List<T>> processor,
+                            List<T> out) {
+        process(content, blockStart, processor, out, PARALLEL);
+    }
+
+    /**
+     * Processes the remaining lines
+     * @param parallel Whether to process in parallel. The results are the same either way
+     * @see #process(LineCursor, Predicate, Function, List)
+     */
+    static <T> void process(LineCursor content, Predicate<String> blockStart, Function<LineCursor, List<T>> processor,
+                            List<T> out, boolean parallel) {
+        if (!parallel) {
+            out.addAll(processor.apply(content));
+            return;
+        }
+        int maxPending = ForkJoinPool.getCommonPoolParallelism() << 1;
+        ArrayDeque<ForkJoinTask<List<T>>> pending = new ArrayDeque<>();
+        ObjectArrayList<String> chunk = new ObjectArrayList<>(CHUNK_LINES);
+        for (String s; (s = content.next()) != null; ) {
+            if (chunk.size() >= CHUNK_LINES && blockStart.test(s)) {
+                List<String> lines = chunk;
+                pending.add(ForkJoinPool.commonPool().submit(() -> processor.apply(LineCursor.of(lines))));
+                if (pending.size() > maxPending) out.addAll(pending.remove().join());
+                chunk = new ObjectArrayList<>(CHUNK_LINES);
+            }
+            chunk.add(s);
+        }
+        List<T> last = processor.apply(LineCursor.of(chunk));
+        while (!pending.isEmpty()) out.addAll(pending.remove().join());
+        out.addAll(last);
+    }
+}
@@ -24,6 +24,7 @@ import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import java.util.List;
@@ -38,9 +39,19 @@ public enum CsrgMappingProcessor implements MappingProcessor.Classified<PairedMa
 
     @Override
     public ClassifiedMapping<PairedMapping> process(List<String> content) {
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
         ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
         Object2ObjectOpenHashMap<String, ClassMapping<PairedMapping>> classes = new Object2ObjectOpenHashMap<>(); // k: unmapped name
-        content.parallelStream().forEach(s -> {
+        content.stream().parallel().forEach(s -> {
             String[] sa = MappingUtil.split(s, ' ');
             switch (sa.length) {
                 case 2 -> { // Class / Package
@@ -48,7 +59,7 @@ public enum CsrgMappingProcessor implements MappingProcessor.Classified<PairedMa
                         mappings.packages.add(new PairedMapping(sa[0].substring(0, sa[0].length() - 1),
                                 sa[1].substring(0, sa[1].length() - 1)));
                     } else {
-                        ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(sa[0], sa[1]));
+                        ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(pool.intern(sa[0]), pool.intern(sa[1])));
                         synchronized (classes) {
                             classes.merge(classMapping.mapping.unmappedName, classMapping, (o, n) -> {
                                 n.addFields(o.getFields());
@@ -59,15 +70,17 @@ public enum CsrgMappingProcessor implements MappingProcessor.Classified<PairedMa
                     }
                 }
                 case 3 -> { // Field
-                    PairedMapping fieldMapping = MappingUtil.Paired.o(sa[1], sa[2]);
+                    PairedMapping fieldMapping = MappingUtil.Paired.o(pool.intern(sa[1]), sa[2]);
+                    String unmClassName = pool.intern(sa[0]);
                     synchronized (classes) {
-                        classes.computeIfAbsent(sa[0], MappingUtil.Paired.COMPUTE_DEFAULT_CLASS).addField(fieldMapping);
+                        classes.computeIfAbsent(unmClassName, MappingUtil.Paired.COMPUTE_DEFAULT_CLASS).addField(fieldMapping);
                     }
                 }
                 case 4 -> { // Method
-                    PairedMapping methodMapping = MappingUtil.Paired.duo(sa[1], sa[3], sa[2]);
+                    PairedMapping methodMapping = MappingUtil.Paired.duo(pool.intern(sa[1]), sa[3], pool.intern(sa[2]));
+                    String unmClassName = pool.intern(sa[0]);
                     synchronized (classes) {
-                        classes.computeIfAbsent(sa[0], MappingUtil.Paired.COMPUTE_DEFAULT_CLASS).addMethod(methodMapping);
+                        classes.computeIfAbsent(unmClassName, MappingUtil.Paired.COMPUTE_DEFAULT_CLASS).addMethod(methodMapping);
                     }
                 }
                 default -> throw new IllegalArgumentException("Is this a CSRG mapping file?");
@@ -0,0 +1,161 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.processor;
+
+import cn.maxpixel.mcdecompiler.mapping.util.Utils;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A forward-only cursor over the lines of the content to process.<br>
+ * Lines are read only when they are needed and are not kept afterwards, so processing the lines from a reader never
+ * holds the whole content in memory.
+ */
+public abstract class LineCursor {
+    private String peeked;
+
+    /**
+     * Creates a cursor which reads the lines from the reader. Blank lines and comments are skipped
+     * @param reader The reader. Not closed by the cursor
+     * @param commentChar The comment char. '\0' if comments are not supported
+     * @return The cursor
+     */
+    public static @NotNull LineCursor of(@NotNull BufferedReader reader, char commentChar) {
+        Objects.requireNonNull(reader);
+        return new LineCursor() {
+            @Override
+            protected String read() {
+                try {
+                    for (String s; (s = reader.readLine()) != null; ) {
+                        if (s.isBlank()) continue;
+                        if (commentChar != '\0') {
+                            int index = s.indexOf(commentChar);
+                            if (index == 0) continue;
+                            if (index > 0) s = s.substring(0, index);
+                        }
+                        return s;
+                    }
+                    return null;
+                } catch (IOException e) {
+                    throw Utils.wrapInRuntime(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a cursor over the lines. The lines are used as-is
+     * @param lines The lines
+     * @return The cursor
+     */
+    public static @NotNull LineCursor of(@NotNull List<String> lines) {
+        Objects.requireNonNull(lines);
+        return new LineCursor() {
+            private int index;
+
+            @Override
+            protected String read() {
+                return index < lines.size() ? lines.get(index++) : null;
+            }
+
+            @Override
+            protected Stream<String> remaining() {// Splits better than the iterator when run in parallel
+                Stream<String> s = lines.subList(index, lines.size()).stream();
+                index = lines.size();
+                return s;
+            }
+        };
+    }
+
+    /**
+     * @return The next line, or null if there are no more lines
+     */
+    protected abstract @Nullable String read();
+
+    /**
+     * @return Stream of the remaining lines
+     */
+    protected Stream<String> remaining() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Iterator<>() {
+            private String next = read();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null) throw new NoSuchElementException();
+                String s = next;
+                next = read();
+                return s;
+            }
+        }, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Gets the next line without moving the cursor
+     * @return The next line, or null if there are no more lines
+     */
+    public @Nullable String peek() {
+        if (peeked == null) peeked = read();
+        return peeked;
+    }
+
+    /**
+     * Moves the cursor to the next line
+     * @return The next line, or null if there are no more lines
+     */
+    public @Nullable String next() {
+        String s = peek();
+        peeked = null;
+        return s;
+    }
+
+    /**
+     * Consumes all the remaining lines as a stream. Lines can be processed in parallel if the order doesn't matter
+     * @return Stream of the remaining lines
+     */
+    public @NotNull Stream<String> stream() {
+        String s = peeked;
+        peeked = null;
+        return s == null ? remaining() : Stream.concat(Stream.of(s), remaining());
+    }
+
+    /**
+     * Consumes all the remaining lines into a list
+     * @return The remaining lines
+     */
+    public @NotNull ObjectArrayList<String> toList() {
+        return stream().collect(ObjectArrayList.toList());
+    }
+}
@@ -23,6 +23,7 @@ import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.MappingCollection;
 import cn.maxpixel.mcdecompiler.mapping.collection.UniqueMapping;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import java.util.List;
@@ -46,6 +47,64 @@ public interface MappingProcessor<T extends Mapping, C extends MappingCollection
      */
     C process(List<String> content);
 
+    /**
+     * Processes contents(probably of one file) to a mapping collection, reading the lines one after another.<br>
+     * Built-in processors never hold all the lines, so the memory needed is bounded by the result instead of the content.
+     * The default implementation collects the lines and calls {@link #process(List)}
+     *
+     * @param content contents to process
+     * @return processed mapping collection
+     */
+    default C process(LineCursor content) {
+        return process(content.toList());
+    }
+
+    /**
+     * Processes contents(probably of one file) to a mapping collection, interning repeated strings in the pool.<br>
+     * Built-in processors intern descriptors, namespaces, class names and unmapped member names, so the mappings share
+     * them.
+     *
+     * @param content contents to process
+     * @param pool the pool to intern strings in
+     * @return processed mapping collection
+     */
+    default C process(LineCursor content, StringPool pool) {
+        return process(content, pool, ParseProfile.ALL);
+    }
+
+    /**
+     * Processes contents(probably of one file) to a mapping collection, only processing the components in the profile.<br>
+     * The default implementation ignores the pool and the profile and calls {@link #process(LineCursor)}
+     *
+     * @param content contents to process
+     * @param pool the pool to intern strings in
+     * @param profile the components needed
+     * @return processed mapping collection
+     */
+    default C process(LineCursor content, StringPool pool, ParseProfile profile) {
+        return process(content);
+    }
+
+    /**
+     * Processes contents(probably of multiple files) and merge them into a single mapping collection.
+     *
+     * @param contents contents to process
+     * @return processed mapping collection
+     */
+    default C process(LineCursor... contents) {
+        return process(new StringPool(), contents);
+    }
+
+    /**
+     * Processes contents(probably of multiple files) and merge them into a single mapping collection, interning
+     * repeated strings in the pool.
+     *
+     * @param pool the pool to intern strings in
+     * @param contents contents to process
+     * @return processed mapping collection
+     */
+    C process(StringPool pool, LineCursor... contents);
+
     /**
      * Processes contents(probably of multiple files) and merge them into a single mapping collection.
      *
@@ -68,6 +127,13 @@ public interface MappingProcessor<T extends Mapping, C extends MappingCollection
     C process(Map<String, List<String>> contents);// TODO: better ways of merging mapping collections?
 
     interface Unique<T extends Mapping> extends MappingProcessor<T, UniqueMapping<T>> {
+        @Override
+        default UniqueMapping<T> process(StringPool pool, LineCursor... contents) {
+            UniqueMapping<T> result = new UniqueMapping<>();
+            for (LineCursor content : contents) result.add(process(content, pool));
+            return result;
+        }
+
         @Override
         default UniqueMapping<T> process(Map<String, List<String>> contents) {
             UniqueMapping<T> result = new UniqueMapping<>();
@@ -77,6 +143,13 @@ public interface MappingProcessor<T extends Mapping, C extends MappingCollection
     }
 
     interface Classified<T extends Mapping> extends MappingProcessor<T, ClassifiedMapping<T>> {
+        @Override
+        default ClassifiedMapping<T> process(StringPool pool, LineCursor... contents) {
+            ClassifiedMapping<T> result = new ClassifiedMapping<>();
+            for (LineCursor content : contents) result.add(process(content, pool));
+            return result;
+        }
+
         @Override
         default ClassifiedMapping<T> process(Map<String, List<String>> contents) {
             ClassifiedMapping<T> result = new ClassifiedMapping<>();
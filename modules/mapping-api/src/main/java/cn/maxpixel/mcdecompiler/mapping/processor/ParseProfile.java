@@ -0,0 +1,87 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.processor;
+
+import cn.maxpixel.mcdecompiler.mapping.component.Component;
+import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
+import cn.maxpixel.mcdecompiler.mapping.component.LocalVariableTable;
+import cn.maxpixel.mcdecompiler.mapping.component.Owned;
+import cn.maxpixel.mcdecompiler.mapping.component.StaticIdentifiable;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Declares the components the caller needs from the processed mappings.<br>
+ * Descriptors, owners and static identifiers are always processed because they identify the members. Processors skip
+ * parsing and creating the other components(e.g. {@link cn.maxpixel.mcdecompiler.mapping.component.Documented},
+ * {@link cn.maxpixel.mcdecompiler.mapping.component.LineNumber} and {@link LocalVariableTable}) which are not needed.
+ */
+public final class ParseProfile {
+    /**
+     * Processes all the components
+     */
+    public static final ParseProfile ALL = new ParseProfile(null);
+
+    /**
+     * Only processes the components used when remapping classes, which are the ones identifying the members and the
+     * {@link LocalVariableTable}s used to rename local variables. Documents and line numbers are skipped
+     */
+    public static final ParseProfile REMAP = new ParseProfile(Set.of(LocalVariableTable.class));
+
+    private final Set<Class<? extends Component>> components;// null means all
+
+    private ParseProfile(Set<Class<? extends Component>> components) {
+        this.components = components;
+    }
+
+    /**
+     * Creates a profile which processes the given components besides the ones identifying the members
+     * @param components The components needed. Subclasses of the given classes are also needed
+     * @return The profile
+     */
+    @SafeVarargs
+    public static @NotNull ParseProfile of(@NotNull Class<? extends Component> @NotNull ... components) {
+        ObjectOpenHashSet<Class<? extends Component>> set = new ObjectOpenHashSet<>(components.length);
+        for (Class<? extends Component> c : components) set.add(Objects.requireNonNull(c));
+        return new ParseProfile(Set.copyOf(set));
+    }
+
+    /**
+     * @param type The component class
+     * @return true if the processor should process the component
+     */
+    public boolean needs(@NotNull Class<? extends Component> type) {
+        if (components == null || Descriptor.class.isAssignableFrom(type) || type == Owned.class ||
+                type == StaticIdentifiable.class) return true;
+        for (Class<? extends Component> c : components) {
+            if (c.isAssignableFrom(type)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return components == null ? "ParseProfile[ALL]" : components.stream().map(Class::getName).sorted()
+                .collect(Collectors.joining(", ", "ParseProfile[", "]"));
+    }
+}
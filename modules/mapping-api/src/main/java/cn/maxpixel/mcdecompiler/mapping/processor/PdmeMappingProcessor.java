@@ -29,6 +29,7 @@ import cn.maxpixel.mcdecompiler.mapping.trait.AccessTransformationTrait;
 import cn.maxpixel.mcdecompiler.mapping.trait.InheritanceTrait;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
 import cn.maxpixel.mcdecompiler.mapping.util.NamingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import java.util.List;
@@ -45,36 +46,51 @@ public enum PdmeMappingProcessor implements MappingProcessor.Classified<PairedMa
 
     @Override
     public ClassifiedMapping<PairedMapping> process(List<String> content) {
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
         InheritanceTrait inheritanceMap = new InheritanceTrait();
         AccessTransformationTrait at = new AccessTransformationTrait();
         ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>(inheritanceMap, at);
         Object2ObjectOpenHashMap<String, ClassMapping<PairedMapping>> classes = new Object2ObjectOpenHashMap<>(); // k: unmapped name
         Object2ObjectOpenHashMap<String, PairedMapping> methodMap = new Object2ObjectOpenHashMap<>();
-        for (String line : content) {
+        boolean docs = profile.needs(Documented.class);
+        boolean lvt = profile.needs(LocalVariableTable.Paired.class);
+        for (String line; (line = content.next()) != null; ) {
             String[] parts = MappingUtil.split(line, PARA);
             switch (parts[0]) {
                 case "Class" -> {
-                    String unmapped = NamingUtil.asNativeName(parts[1]);
-                    String mapped = NamingUtil.asNativeName(parts[2]);
-                    classes.merge(unmapped, new ClassMapping<>(new PairedMapping(unmapped, mapped, new Documented(parts[5]))), (o, n) -> {
+                    String unmapped = pool.intern(NamingUtil.asNativeName(parts[1]));
+                    String mapped = pool.intern(NamingUtil.asNativeName(parts[2]));
+                    classes.merge(unmapped, new ClassMapping<>(docs ? new PairedMapping(unmapped, mapped, new Documented(parts[5])) :
+                            new PairedMapping(unmapped, mapped)), (o, n) -> {
                         n.addFields(o.getFields());
                         n.addMethods(o.getMethods());
                         return n;
                     });
                 }
-                case "Def" -> getMethod(parts[1], parts[2], parts[5], classes, methodMap);
+                case "Def" -> getMethod(parts[1], parts[2], docs ? parts[5] : null, classes, methodMap, pool, lvt);
                 case "Var" -> {
                     int lastDot = parts[1].lastIndexOf('.');
                     int colon = parts[1].lastIndexOf(':');
-                    PairedMapping field = MappingUtil.Paired.duo(parts[1].substring(lastDot + 1, colon), parts[2],
-                            parts[1].substring(colon + 1));
-                    field.addComponent(new Documented(parts[5]));
-                    classes.computeIfAbsent(NamingUtil.asNativeName(parts[1].substring(0, lastDot)),
+                    PairedMapping field = MappingUtil.Paired.duo(pool.intern(parts[1].substring(lastDot + 1, colon)), parts[2],
+                            pool.intern(parts[1].substring(colon + 1)));
+                    if (docs) field.addComponent(new Documented(parts[5]));
+                    classes.computeIfAbsent(pool.intern(NamingUtil.asNativeName(parts[1].substring(0, lastDot))),
                             MappingUtil.Paired.COMPUTE_DEFAULT_CLASS).addField(field);
                 }
-                case "Param" -> getMethod(parts[3], null, null, classes, methodMap)
-                        .getComponent(LocalVariableTable.Paired.class)
-                        .setLocalVariable(Integer.parseInt(parts[4]), new PairedMapping(parts[1], parts[2], new Documented(parts[5])));
+                case "Param" -> {
+                    PairedMapping method = getMethod(parts[3], null, null, classes, methodMap, pool, lvt);
+                    if (lvt) method.getComponent(LocalVariableTable.Paired.class).setLocalVariable(Integer.parseInt(parts[4]),
+                            docs ? new PairedMapping(parts[1], parts[2], new Documented(parts[5])) : new PairedMapping(parts[1], parts[2]));
+                }
                 case "Include", "Incluir" -> inheritanceMap.put(NamingUtil.asNativeName(parts[1]),
                         MappingUtil.split(NamingUtil.asNativeName(parts[2]), ','));
                 case "AccessFlag", "BanderaDeAcceso" -> {
@@ -122,7 +138,8 @@ public enum PdmeMappingProcessor implements MappingProcessor.Classified<PairedMa
 
     private static PairedMapping getMethod(String original, String mapped, String docs,
                                            Object2ObjectOpenHashMap<String, ClassMapping<PairedMapping>> classes,
-                                           Object2ObjectOpenHashMap<String, PairedMapping> methodMap) {
+                                           Object2ObjectOpenHashMap<String, PairedMapping> methodMap, StringPool pool,
+                                           boolean lvt) {
         return methodMap.compute(original, (s, old) -> {
             if (old != null) {
                 if (docs != null) old.addComponent(new Documented(docs));
@@ -131,10 +148,12 @@ public enum PdmeMappingProcessor implements MappingProcessor.Classified<PairedMa
             }
             int lastDot = s.lastIndexOf('.');
             int bracket = s.lastIndexOf('(');
-            String name = s.substring(lastDot + 1, bracket);
-            PairedMapping method = MappingUtil.Paired.lvduo(name, mapped == null ? name : mapped, s.substring(bracket));
+            String name = pool.intern(s.substring(lastDot + 1, bracket));
+            String desc = pool.intern(s.substring(bracket));
+            PairedMapping method = lvt ? MappingUtil.Paired.lvduo(name, mapped == null ? name : mapped, desc) :
+                    MappingUtil.Paired.duo(name, mapped == null ? name : mapped, desc);
             if (docs != null) method.addComponent(new Documented(docs));
-            classes.computeIfAbsent(NamingUtil.asNativeName(s.substring(0, lastDot)),
+            classes.computeIfAbsent(pool.intern(NamingUtil.asNativeName(s.substring(0, lastDot))),
                     MappingUtil.Paired.COMPUTE_DEFAULT_CLASS).addMethod(method);
             return method;
         });
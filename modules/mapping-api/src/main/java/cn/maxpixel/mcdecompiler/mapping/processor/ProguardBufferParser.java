@@ -0,0 +1,296 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.processor;
+
+import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.NamingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses Proguard mappings directly from the bytes of the file, which is usually memory-mapped.<br>
+ * Lines are never decoded as a whole. Java type names are looked up in a table keyed by their bytes, so each distinct
+ * type is decoded and converted to a descriptor only once, and Strings are only created for the names and descriptors
+ * that end up in the mappings.
+ *
+ * @see ProguardMappingProcessor#process(ByteBuffer)
+ */
+final class ProguardBufferParser {
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final ByteBuffer buf;
+    private final StringPool pool;
+    private final boolean lineNumbers;
+    private final TypeTable types = new TypeTable();
+    private final StringBuilder descriptor = new StringBuilder();
+    private byte[] scratch = new byte[128];
+
+    private ProguardBufferParser(ByteBuffer buf, StringPool pool, boolean lineNumbers) {
+        this.buf = buf;
+        this.pool = pool;
+        this.lineNumbers = lineNumbers;
+    }
+
+    /**
+     * Parses the content. Large content is split into chunks on class lines, which are parsed in parallel
+     * @param lineNumbers Whether to parse the line numbers
+     */
+    static ClassifiedMapping<PairedMapping> parse(ByteBuffer buf, StringPool pool, boolean lineNumbers) {
+        return parse(buf, pool, lineNumbers, ClassBlocks.PARALLEL);
+    }
+
+    /**
+     * Parses the content
+     * @param parallel Whether large content may be parsed in parallel. The results are the same either way
+     * @see #parse(ByteBuffer, StringPool, boolean)
+     */
+    static ClassifiedMapping<PairedMapping> parse(ByteBuffer buf, StringPool pool, boolean lineNumbers, boolean parallel) {
+        int start = buf.position(), limit = buf.limit();
+        if (!parallel || limit - start < CHUNK_BYTES << 1) return new ProguardBufferParser(buf, pool, lineNumbers).parse();
+        ObjectArrayList<ForkJoinTask<ClassifiedMapping<PairedMapping>>> tasks = new ObjectArrayList<>();
+        for (int end; start < limit; start = end) {
+            end = nextClassLine(buf, start + CHUNK_BYTES, limit);
+            ByteBuffer chunk = buf.slice(start, end - start);
+            tasks.add(ForkJoinPool.commonPool().submit(() -> new ProguardBufferParser(chunk, pool, lineNumbers).parse()));
+        }
+        ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
+        for (var task : tasks) mappings.classes.addAll(task.join().classes);
+        return mappings;
+    }
+
+    private static int nextClassLine(ByteBuffer buf, int from, int limit) {
+        for (int i = from; i < limit - 1; i++) {
+            if (buf.get(i) != '\n') continue;
+            byte b = buf.get(i + 1);
+            if (b != '#' && !Character.isWhitespace(b)) return i + 1;
+        }
+        return limit;
+    }
+
+    private ClassifiedMapping<PairedMapping> parse() {
+        ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
+        ClassMapping<PairedMapping> classMapping = null;
+        int limit = buf.limit();
+        for (int pos = buf.position(), lineEnd; pos < limit; pos = lineEnd + 1) {
+            lineEnd = indexOf('\n', pos, limit);
+            if (lineEnd < 0) lineEnd = limit;
+            int end = lineEnd;
+            if (end > pos && buf.get(end - 1) == '\r') end--;
+            if (isBlank(pos, end)) continue;
+            int comment = indexOf('#', pos, end);// Same as LineCursor
+            if (comment == pos) continue;
+            if (comment > 0) end = comment;
+            if (!isMember(pos, end)) {
+                int split = indexOf(" -> ", pos, end);
+                if (split <= pos || end - 1 < split + 4) error();
+                classMapping = new ClassMapping<>(new PairedMapping(types.name(split + 4, end - 1), types.name(pos, split)));
+                mappings.classes.add(classMapping);
+            } else if (classMapping == null) error();
+            else processMember(classMapping, pos, end);
+        }
+        return mappings;
+    }
+
+    private void processMember(ClassMapping<PairedMapping> classMapping, int start, int end) {
+        int leftBracket = indexOf('(', start, end);
+        int rightBracket = lastIndexOf(')', start, end);
+        if (leftBracket > 0 && rightBracket > 0) {
+            int lineNum = indexOf(':', start, end);
+            if (rightBracket < leftBracket || rightBracket + 5 > end) error();
+            StringBuilder descriptor = this.descriptor;
+            descriptor.setLength(0);
+            descriptor.append('(');
+            int prev = leftBracket;
+            for (int next = indexOf(',', prev + 1, end); next > 0; prev = next, next = indexOf(',', prev + 1, end)) {
+                descriptor.append(types.descriptor(prev + 1, next));
+            }
+            if (rightBracket - 1 != leftBracket) descriptor.append(types.descriptor(prev + 1, rightBracket));
+            if (lineNum > 0) {
+                int split1 = indexOf(' ', start + 11, end);// skip leading 4 spaces, descriptor name(at least 3 chars), and line number(at least 4 chars)
+                if (split1 < 0) error();
+                int lineNum1 = indexOf(':', lineNum + 2, end);
+                if (lineNum1 < 0 || lineNum1 > split1 || split1 > leftBracket) error();
+                String unmapped = pool.intern(string(rightBracket + 5, end));
+                String mapped = string(split1 + 1, leftBracket);
+                String desc = pool.intern(descriptor.append(')').append(types.descriptor(lineNum1 + 1, split1)).toString());
+                classMapping.addMethod(lineNumbers ? MappingUtil.Paired.ldmo(unmapped, mapped, desc, parseInt(start + 4, lineNum),
+                        parseInt(lineNum + 1, lineNum1)) : MappingUtil.Paired.dmo(unmapped, mapped, desc));
+            } else { // no line number
+                int split1 = indexOf(' ', start + 7, end);// skip leading 4 spaces and descriptor name/line number(at least 3 chars)
+                if (split1 < 0 || split1 > leftBracket) error();
+                classMapping.addMethod(MappingUtil.Paired.dmo(pool.intern(string(rightBracket + 5, end)), string(split1 + 1, leftBracket),
+                        pool.intern(descriptor.append(')').append(types.descriptor(start + 4, split1)).toString())));
+            }
+        } else {
+            int split1 = indexOf(' ', start + 7, end);// skip leading 4 spaces and descriptor name(at least 3 chars)
+            if (split1 < 0) error();
+            int split2 = indexOf(" -> ", split1 + 2, end);// skip split1(1 char) and mapped name(at least 1 char)
+            if (split2 < 0) error();
+            classMapping.addField(MappingUtil.Paired.dmo(pool.intern(string(split2 + 4, end)), string(split1 + 1, split2),
+                    types.descriptor(start + 4, split1)));
+        }
+    }
+
+    private boolean isMember(int start, int end) {
+        if (end - start < 4) return false;
+        for (int i = start; i < start + 4; i++) if (buf.get(i) != ' ') return false;
+        return true;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(buf.get(i))) return false;
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from, int end) {
+        for (int i = from; i < end; i++) if (buf.get(i) == c) return i;
+        return -1;
+    }
+
+    private int indexOf(String s, int from, int end) {
+        char first = s.charAt(0);
+        int max = end - s.length();
+        outer:
+        for (int i = indexOf(first, from, end); i >= 0 && i <= max; i = indexOf(first, i + 1, end)) {
+            for (int j = 1; j < s.length(); j++) {
+                if (buf.get(i + j) != s.charAt(j)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private int lastIndexOf(char c, int start, int end) {
+        for (int i = end - 1; i >= start; i--) if (buf.get(i) == c) return i;
+        return -1;
+    }
+
+    private int parseInt(int start, int end) {
+        if (start >= end) error();
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) error();
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String string(int start, int end) {
+        if (start > end) error();
+        return new String(bytes(start, end), 0, end - start, StandardCharsets.UTF_8);
+    }
+
+    private byte[] bytes(int start, int end) {
+        int len = end - start;
+        if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length << 1)];
+        buf.get(start, scratch, 0, len);
+        return scratch;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void error() {
+        throw new IllegalArgumentException("Is this a Proguard mapping file?");
+    }
+
+    /**
+     * Open-addressing table from the bytes of java type names to their native names and descriptors
+     */
+    private final class TypeTable {
+        private byte[][] keys = new byte[1024][];
+        private String[] names = new String[1024];
+        private String[] descriptors = new String[1024];
+        private int size;
+
+        String name(int start, int end) {
+            int i = find(start, end);
+            String name = names[i];
+            if (name == null) names[i] = name = pool.intern(NamingUtil.asNativeName(decode(i)));
+            return name;
+        }
+
+        String descriptor(int start, int end) {
+            int i = find(start, end);
+            String desc = descriptors[i];
+            if (desc == null) descriptors[i] = desc = pool.intern(NamingUtil.java2Descriptor(decode(i)));
+            return desc;
+        }
+
+        private String decode(int i) {
+            return new String(keys[i], StandardCharsets.UTF_8);
+        }
+
+        private int find(int start, int end) {
+            if (start > end) error();
+            int hash = 1;
+            for (int j = start; j < end; j++) hash = 31 * hash + buf.get(j);
+            int mask = keys.length - 1;
+            int i = mix(hash) & mask;
+            for (byte[] key; (key = keys[i]) != null; i = (i + 1) & mask) {
+                if (matches(key, start, end)) return i;
+            }
+            keys[i] = Arrays.copyOf(bytes(start, end), end - start);
+            if (++size > keys.length >> 1) {
+                rehash();
+                return find(start, end);
+            }
+            return i;
+        }
+
+        private boolean matches(byte[] key, int start, int end) {
+            if (key.length != end - start) return false;
+            for (int j = 0; j < key.length; j++) {
+                if (key[j] != buf.get(start + j)) return false;
+            }
+            return true;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            String[] oldNames = names, oldDescriptors = descriptors;
+            int length = oldKeys.length << 1, mask = length - 1;
+            keys = new byte[length][];
+            names = new String[length];
+            descriptors = new String[length];
+            for (int j = 0; j < oldKeys.length; j++) {
+                byte[] key = oldKeys[j];
+                if (key == null) continue;
+                int i = mix(Arrays.hashCode(key)) & mask;
+                while (keys[i] != null) i = (i + 1) & mask;
+                keys[i] = key;
+                names[i] = oldNames[j];
+                descriptors[i] = oldDescriptors[j];
+            }
+        }
+    }
+}
@@ -21,11 +21,15 @@ package cn.maxpixel.mcdecompiler.mapping.processor;
 import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.component.LineNumber;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
 import cn.maxpixel.mcdecompiler.mapping.util.NamingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public enum ProguardMappingProcessor implements MappingProcessor.Classified<PairedMapping> {
@@ -38,63 +42,118 @@ public enum ProguardMappingProcessor implements MappingProcessor.Classified<Pair
 
     @Override
     public ClassifiedMapping<PairedMapping> process(List<String> content) {
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
+        return process(content, pool, profile, ClassBlocks.PARALLEL);
+    }
+
+    ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile, boolean parallel) {
         ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
-        for (int i = 0, len = content.size(); i < len; ) {
-            String s = content.get(i);
+        boolean lineNumbers = profile.needs(LineNumber.class);
+        ClassBlocks.process(content, s -> !s.startsWith("    "), c -> processClasses(c, pool, lineNumbers), mappings.classes,
+                parallel);
+        return mappings;
+    }
+
+    private static ObjectArrayList<ClassMapping<PairedMapping>> processClasses(LineCursor content, StringPool pool,
+                                                                               boolean lineNumbers) {
+        ObjectArrayList<ClassMapping<PairedMapping>> classes = new ObjectArrayList<>();
+        for (String s; (s = content.next()) != null; ) {
             if (!s.startsWith("    ")) {
                 int splitIndex = s.indexOf(" -> ");
                 if (splitIndex <= 0) error();
                 ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(
-                        NamingUtil.asNativeName(s.substring(splitIndex + 4, s.length() - 1)),
-                        NamingUtil.asNativeName(s.substring(0, splitIndex))
+                        pool.intern(NamingUtil.asNativeName(s.substring(splitIndex + 4, s.length() - 1))),
+                        pool.intern(NamingUtil.asNativeName(s.substring(0, splitIndex)))
                 ));
-                i = processTree(i, len, content, classMapping);
-                mappings.classes.add(classMapping);
+                processTree(content, classMapping, pool, lineNumbers);
+                classes.add(classMapping);
             } else error();
         }
-        return mappings;
+        return classes;
+    }
+
+    /**
+     * Processes the bytes of a Proguard mapping file, e.g. a memory-mapped file.<br>
+     * This produces the same mappings as processing the lines, but doesn't decode the content as lines, and only
+     * converts each distinct java type to a descriptor once. Large content is split into chunks on class boundaries
+     * and processed in parallel.
+     * @param content The bytes between the position and the limit are processed. The buffer itself is not modified
+     * @return Processed mappings
+     */
+    public ClassifiedMapping<PairedMapping> process(ByteBuffer content) {
+        return process(content, new StringPool(), ParseProfile.ALL);
     }
 
-    private static int processTree(int index, int size, List<String> content, ClassMapping<PairedMapping> classMapping) {
-        for (index = index + 1; index < size; index++) {
-            String s = content.get(index);
-            if (s.startsWith("    ")) {
-                if (s.contains("(") && s.contains(")")) {
-                    int lineNum = s.indexOf(':');
-                    int leftBracket = s.indexOf('(');
-                    int rightBracket = s.lastIndexOf(')');
-                    StringBuilder descriptor = new StringBuilder("(");
-                    int prev = leftBracket;
-                    for (int next = s.indexOf(',', prev + 1); next > 0;
-                         prev = next, next = s.indexOf(',', prev + 1)) {
-                        descriptor.append(NamingUtil.java2Descriptor(s.substring(prev + 1, next)));
-                    }
-                    if (rightBracket - 1 != leftBracket) descriptor.append(NamingUtil.java2Descriptor(s.substring(prev + 1, rightBracket)));
-                    if (lineNum > 0) {
-                        int split1 = s.indexOf(' ', 11);// skip leading 4 spaces, descriptor name(at least 3 chars), and line number(at least 4 chars)
-                        if (split1 < 0) error();
-                        int lineNum1 = s.indexOf(':', lineNum + 2);
-                        if (lineNum1 < 0) error();
-                        classMapping.addMethod(MappingUtil.Paired.ldmo(s.substring(rightBracket + 5), s.substring(split1 + 1, leftBracket),
-                                descriptor.append(')').append(NamingUtil.java2Descriptor(s.substring(lineNum1 + 1, split1))).toString(),
-                                Integer.parseInt(s.substring(4, lineNum)), Integer.parseInt(s.substring(lineNum + 1, lineNum1))));
-                    } else { // no line number
-                        int split1 = s.indexOf(' ', 7);// skip leading 4 spaces and descriptor name/line number(at least 3 chars)
-                        if (split1 < 0) error();
-                        classMapping.addMethod(MappingUtil.Paired.dmo(s.substring(rightBracket + 5), s.substring(split1 + 1, leftBracket),
-                                descriptor.append(')').append(NamingUtil.java2Descriptor(s.substring(4, split1))).toString()));
-                    }
-                } else {
-                    int split1 = s.indexOf(' ', 7);// skip leading 4 spaces and descriptor name(at least 3 chars)
+    /**
+     * Processes the bytes of a Proguard mapping file, interning repeated strings in the pool
+     * @see #process(ByteBuffer)
+     */
+    public ClassifiedMapping<PairedMapping> process(ByteBuffer content, StringPool pool) {
+        return process(content, pool, ParseProfile.ALL);
+    }
+
+    /**
+     * Processes the bytes of a Proguard mapping file, interning repeated strings in the pool and only processing the
+     * components in the profile
+     * @see #process(ByteBuffer)
+     */
+    public ClassifiedMapping<PairedMapping> process(ByteBuffer content, StringPool pool, ParseProfile profile) {
+        return process(content, pool, profile, ClassBlocks.PARALLEL);
+    }
+
+    ClassifiedMapping<PairedMapping> process(ByteBuffer content, StringPool pool, ParseProfile profile, boolean parallel) {
+        return ProguardBufferParser.parse(content, pool, profile.needs(LineNumber.class), parallel);
+    }
+
+    private static void processTree(LineCursor content, ClassMapping<PairedMapping> classMapping, StringPool pool,
+                                    boolean lineNumbers) {
+        for (String s; (s = content.peek()) != null && s.startsWith("    "); ) {
+            content.next();
+            if (s.contains("(") && s.contains(")")) {
+                int lineNum = s.indexOf(':');
+                int leftBracket = s.indexOf('(');
+                int rightBracket = s.lastIndexOf(')');
+                StringBuilder descriptor = new StringBuilder("(");
+                int prev = leftBracket;
+                for (int next = s.indexOf(',', prev + 1); next > 0;
+                     prev = next, next = s.indexOf(',', prev + 1)) {
+                    descriptor.append(NamingUtil.java2Descriptor(s.substring(prev + 1, next)));
+                }
+                if (rightBracket - 1 != leftBracket) descriptor.append(NamingUtil.java2Descriptor(s.substring(prev + 1, rightBracket)));
+                if (lineNum > 0) {
+                    int split1 = s.indexOf(' ', 11);// skip leading 4 spaces, descriptor name(at least 3 chars), and line number(at least 4 chars)
+                    if (split1 < 0) error();
+                    int lineNum1 = s.indexOf(':', lineNum + 2);
+                    if (lineNum1 < 0) error();
+                    String unmapped = pool.intern(s.substring(rightBracket + 5));
+                    String mapped = s.substring(split1 + 1, leftBracket);
+                    String desc = pool.intern(descriptor.append(')').append(NamingUtil.java2Descriptor(s.substring(lineNum1 + 1, split1))).toString());
+                    classMapping.addMethod(lineNumbers ? MappingUtil.Paired.ldmo(unmapped, mapped, desc, Integer.parseInt(s.substring(4, lineNum)),
+                            Integer.parseInt(s.substring(lineNum + 1, lineNum1))) : MappingUtil.Paired.dmo(unmapped, mapped, desc));
+                } else { // no line number
+                    int split1 = s.indexOf(' ', 7);// skip leading 4 spaces and descriptor name/line number(at least 3 chars)
                     if (split1 < 0) error();
-                    int split2 = s.indexOf(" -> ", split1 + 2);// skip split1(1 char) and mapped name(at least 1 char)
-                    if (split2 < 0) error();
-                    classMapping.addField(MappingUtil.Paired.dmo(s.substring(split2 + 4),
-                            s.substring(split1 + 1, split2), NamingUtil.java2Descriptor(s.substring(4, split1))));
+                    classMapping.addMethod(MappingUtil.Paired.dmo(pool.intern(s.substring(rightBracket + 5)), s.substring(split1 + 1, leftBracket),
+                            pool.intern(descriptor.append(')').append(NamingUtil.java2Descriptor(s.substring(4, split1))).toString())));
                 }
-            } else break;
+            } else {
+                int split1 = s.indexOf(' ', 7);// skip leading 4 spaces and descriptor name(at least 3 chars)
+                if (split1 < 0) error();
+                int split2 = s.indexOf(" -> ", split1 + 2);// skip split1(1 char) and mapped name(at least 1 char)
+                if (split2 < 0) error();
+                classMapping.addField(MappingUtil.Paired.dmo(pool.intern(s.substring(split2 + 4)),
+                        s.substring(split1 + 1, split2), pool.intern(NamingUtil.java2Descriptor(s.substring(4, split1)))));
+            }
         }
-        return index;
     }
 
     private static void error() {
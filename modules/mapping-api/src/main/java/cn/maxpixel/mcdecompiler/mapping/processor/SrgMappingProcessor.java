@@ -24,6 +24,7 @@ import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import java.util.List;
@@ -42,28 +43,39 @@ public enum SrgMappingProcessor implements MappingProcessor.Classified<PairedMap
 
     @Override
     public ClassifiedMapping<PairedMapping> process(List<String> content) {
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
         ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
         Object2ObjectOpenHashMap<String, ClassMapping<PairedMapping>> classes = new Object2ObjectOpenHashMap<>(); // k: unmapped name
-        content.parallelStream().forEach(s -> {
+        content.stream().parallel().forEach(s -> {
             String[] strings = MappingUtil.split(s, ' ');
             switch (strings[0]) {
                 case "CL:" -> {
-                    ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(strings[1], strings[2]));
+                    ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(pool.intern(strings[1]), pool.intern(strings[2])));
                     synchronized (classes) {
                         classes.putIfAbsent(strings[1], classMapping);
                     }
                 }
                 case "FD:" -> {
-                    PairedMapping fieldMapping = MappingUtil.Paired.o(getName(strings[1]), getName(strings[2]));
-                    String unmClassName = getClassName(strings[1]);
+                    PairedMapping fieldMapping = MappingUtil.Paired.o(pool.intern(getName(strings[1])), getName(strings[2]));
+                    String unmClassName = pool.intern(getClassName(strings[1]));
                     synchronized (classes) {
                         classes.computeIfAbsent(unmClassName, MAPPING_FUNC.apply(strings[2]))
                                 .addField(fieldMapping);
                     }
                 }
                 case "MD:" -> {
-                    PairedMapping methodMapping = MappingUtil.Paired.d2o(getName(strings[1]), getName(strings[3]), strings[2], strings[4]);
-                    String unmClassName = getClassName(strings[1]);
+                    PairedMapping methodMapping = MappingUtil.Paired.d2o(pool.intern(getName(strings[1])), getName(strings[3]),
+                            pool.intern(strings[2]), pool.intern(strings[4]));
+                    String unmClassName = pool.intern(getClassName(strings[1]));
                     synchronized (classes) {
                         classes.computeIfAbsent(unmClassName, MAPPING_FUNC.apply(strings[3]))
                                 .addMethod(methodMapping);
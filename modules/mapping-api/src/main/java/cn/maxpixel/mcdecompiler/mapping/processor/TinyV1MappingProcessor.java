@@ -25,6 +25,7 @@ import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 
 import java.util.List;
@@ -43,27 +44,42 @@ public enum TinyV1MappingProcessor implements MappingProcessor.Classified<Namesp
 
     @Override
     public ClassifiedMapping<NamespacedMapping> process(List<String> content) {
-        if (!content.get(0).startsWith("v1")) error();
-        String[] namespaces = MappingUtil.split(content.get(0), '\t', 3);
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<NamespacedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<NamespacedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
+        String header = content.next();
+        if (header == null || !header.startsWith("v1")) error();
+        String[] namespaces = MappingUtil.split(header, '\t', 3);
+        pool.intern(namespaces, 0, namespaces.length);
         var trait = new NamespacedTrait(namespaces);
         trait.setUnmappedNamespace(namespaces[0]);
         ClassifiedMapping<NamespacedMapping> mappings = new ClassifiedMapping<>(trait);
         Object2ObjectOpenHashMap<String, ClassMapping<NamespacedMapping>> classes = new Object2ObjectOpenHashMap<>(); // k: the first namespace, usually unmapped name
         String k = namespaces[0];
-        content.parallelStream().skip(1).forEach(s -> {
+        content.stream().parallel().forEach(s -> {
             String[] sa = MappingUtil.split(s, '\t');
             if (s.startsWith("CLASS")) {
-                ClassMapping<NamespacedMapping> classMapping = new ClassMapping<>(new NamespacedMapping(namespaces, sa, 1));
+                ClassMapping<NamespacedMapping> classMapping = new ClassMapping<>(new NamespacedMapping(namespaces,
+                        pool.intern(sa, 1, sa.length), 1));
                 synchronized (classes) {
                     classes.merge(sa[1], classMapping, (o, n) -> n.addFields(o.getFields()).addMethods(o.getMethods()));
                 }
             } else if (s.startsWith("FIELD")) {
+                pool.intern(sa, 1, Math.min(sa.length, 4));// owner, descriptor and the name in the first namespace
                 NamespacedMapping fieldMapping = MappingUtil.Namespaced.duo(namespaces, sa, 3, k, sa[2]);
                 synchronized (classes) {
                     classes.computeIfAbsent(sa[1], MAPPING_FUNC.apply(namespaces))
                             .addField(fieldMapping);
                 }
             } else if (s.startsWith("METHOD")) {
+                pool.intern(sa, 1, Math.min(sa.length, 4));// owner, descriptor and the name in the first namespace
                 NamespacedMapping methodMapping = MappingUtil.Namespaced.duo(namespaces, sa, 3, k, sa[2]);
                 synchronized (classes) {
                     classes.computeIfAbsent(sa[1], MAPPING_FUNC.apply(namespaces))
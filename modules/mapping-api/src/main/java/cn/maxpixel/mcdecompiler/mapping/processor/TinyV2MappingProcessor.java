@@ -28,7 +28,9 @@ import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
 import cn.maxpixel.mcdecompiler.mapping.trait.PropertiesTrait;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import cn.maxpixel.mcdecompiler.mapping.util.TinyUtil;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
 import java.util.List;
 
@@ -42,84 +44,122 @@ public enum TinyV2MappingProcessor implements MappingProcessor.Classified<Namesp
 
     @Override
     public ClassifiedMapping<NamespacedMapping> process(List<String> content) {
-        if (!content.get(0).startsWith("tiny\t2\t0")) error();
-        String[] namespaces = MappingUtil.split(content.get(0), '\t', 9);
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<NamespacedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<NamespacedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
+        return process(content, pool, profile, ClassBlocks.PARALLEL);
+    }
+
+    ClassifiedMapping<NamespacedMapping> process(LineCursor content, StringPool pool, ParseProfile profile, boolean parallel) {
+        String header = content.next();
+        if (header == null || !header.startsWith("tiny\t2\t0")) error();
+        String[] namespaces = MappingUtil.split(header, '\t', 9);
+        pool.intern(namespaces, 0, namespaces.length);
         var trait = new NamespacedTrait(namespaces);
         trait.setUnmappedNamespace(namespaces[0]);
         ClassifiedMapping<NamespacedMapping> mappings = new ClassifiedMapping<>(trait);
-        for (int i = 1, len = content.size(); i < len; ) {
-            String[] sa = MappingUtil.split(content.get(i), '\t');
-            if (sa[0].length() == 1 && sa[0].charAt(0) == 'c') {
-                ClassMapping<NamespacedMapping> classMapping = new ClassMapping<>(MappingUtil.Namespaced.d(namespaces, sa, 1));
-                i = processTree(i, len, namespaces, content, classMapping);
-                mappings.classes.add(classMapping);
-            } else if (sa[0].isEmpty()) {
-                var props = mappings.getOrCreateTrait(PropertiesTrait.class, PropertiesTrait::new);
-                if (sa.length == 3) props.setProperty(sa[1], TinyUtil.unescape(sa[2]));
-                else props.addProperty(sa[1]);
-                i++;
-            } else error();
+        for (String s; (s = content.peek()) != null && s.charAt(0) == '\t'; ) {
+            content.next();
+            String[] sa = MappingUtil.split(s, '\t');
+            var props = mappings.getOrCreateTrait(PropertiesTrait.class, PropertiesTrait::new);
+            if (sa.length == 3) props.setProperty(sa[1], TinyUtil.unescape(sa[2]));
+            else props.addProperty(sa[1]);
         }
+        boolean docs = profile.needs(Documented.class);
+        boolean lvt = profile.needs(LocalVariableTable.Namespaced.class);
+        ClassBlocks.process(content, s -> s.charAt(0) != '\t', c -> processClasses(namespaces, c, pool, docs, lvt), mappings.classes,
+                parallel);
         mappings.updateCollection();
         return mappings;
     }
 
-    private static int processTree(int index, int size, String[] namespaces, List<String> content,
-                                   ClassMapping<NamespacedMapping> classMapping) {
-        for (index = index + 1; index < size; index++) {
-            String s = content.get(index);
-            if (s.charAt(0) == '\t') {
-                String[] sa = MappingUtil.split(s, '\t', 3);
-                switch (s.charAt(1)) {
-                    case 'c' -> classMapping.mapping.getComponent(Documented.class).setContentString(TinyUtil.unescape(sa[0]));
-                    case 'f' -> {
-                        NamespacedMapping fieldMapping = MappingUtil.Namespaced.dduo(namespaces, sa, 1, namespaces[0], sa[0]);
-                        index = processTree1(index, size, namespaces, content, fieldMapping);
-                        classMapping.addField(fieldMapping);
-                    }
-                    case 'm' -> {
-                        NamespacedMapping methodMapping = MappingUtil.Namespaced.dlduo(namespaces, sa, 1, namespaces[0], sa[0]);
-                        index = processTree1(index, size, namespaces, content, methodMapping);
-                        classMapping.addMethod(methodMapping);
-                    }
-                    default -> error();
+    private static ObjectArrayList<ClassMapping<NamespacedMapping>> processClasses(String[] namespaces, LineCursor content,
+                                                                                   StringPool pool, boolean docs, boolean lvt) {
+        ObjectArrayList<ClassMapping<NamespacedMapping>> classes = new ObjectArrayList<>();
+        for (String s; (s = content.next()) != null; ) {
+            String[] sa = MappingUtil.split(s, '\t');
+            if (sa[0].length() == 1 && sa[0].charAt(0) == 'c') {
+                pool.intern(sa, 1, sa.length);
+                ClassMapping<NamespacedMapping> classMapping = new ClassMapping<>(docs ? MappingUtil.Namespaced.d(namespaces, sa, 1) :
+                        new NamespacedMapping(namespaces, sa, 1));
+                processTree(namespaces, content, classMapping, pool, docs, lvt);
+                classes.add(classMapping);
+            } else error();
+        }
+        return classes;
+    }
+
+    private static void processTree(String[] namespaces, LineCursor content, ClassMapping<NamespacedMapping> classMapping,
+                                    StringPool pool, boolean docs, boolean lvt) {
+        for (String s; (s = content.peek()) != null && s.charAt(0) == '\t'; ) {
+            content.next();
+            switch (s.charAt(1)) {
+                case 'c' -> {
+                    if (docs) classMapping.mapping.getComponent(Documented.class)
+                            .setContentString(TinyUtil.unescape(MappingUtil.split(s, '\t', 3)[0]));
+                }
+                case 'f' -> {
+                    String[] sa = MappingUtil.split(s, '\t', 3);
+                    pool.intern(sa, 0, Math.min(sa.length, 2));// descriptor and the name in the first namespace
+                    NamespacedMapping fieldMapping = MappingUtil.Namespaced.duo(namespaces, sa, 1, namespaces[0], sa[0]);
+                    if (docs) fieldMapping.addComponent(new Documented());
+                    processTree1(namespaces, content, fieldMapping, docs, lvt);
+                    classMapping.addField(fieldMapping);
                 }
-            } else break;
+                case 'm' -> {
+                    String[] sa = MappingUtil.split(s, '\t', 3);
+                    pool.intern(sa, 0, Math.min(sa.length, 2));
+                    NamespacedMapping methodMapping = MappingUtil.Namespaced.duo(namespaces, sa, 1, namespaces[0], sa[0]);
+                    if (docs) methodMapping.addComponent(new Documented());
+                    if (lvt) methodMapping.addComponent(new LocalVariableTable.Namespaced());
+                    processTree1(namespaces, content, methodMapping, docs, lvt);
+                    classMapping.addMethod(methodMapping);
+                }
+                default -> error();
+            }
         }
-        return index;
     }
 
-    private static int processTree1(int index, int size, String[] namespaces, List<String> content,
-                                    NamespacedMapping mapping) {
-        for (index = index + 1; index < size; index++) {
-            String s = content.get(index);
-            if (s.startsWith("\t\t")) {
-                switch (s.charAt(2)) {
-                    case 'c' -> mapping.getComponent(Documented.class).setContentString(TinyUtil.unescape(s, 4));
-                    case 'p' -> {
+    private static void processTree1(String[] namespaces, LineCursor content, NamespacedMapping mapping, boolean docs, boolean lvt) {
+        for (String s; (s = content.peek()) != null && s.startsWith("\t\t"); ) {
+            content.next();
+            switch (s.charAt(2)) {
+                case 'c' -> {
+                    if (docs) mapping.getComponent(Documented.class).setContentString(TinyUtil.unescape(s, 4));
+                }
+                case 'p' -> {
+                    if (lvt) {
                         String[] sa = MappingUtil.split(s, '\t', 4);
-                        NamespacedMapping localVariable = MappingUtil.Namespaced.d(namespaces, sa, 1);
+                        NamespacedMapping localVariable = docs ? MappingUtil.Namespaced.d(namespaces, sa, 1) :
+                                new NamespacedMapping(namespaces, sa, 1);
                         mapping.getComponent(LocalVariableTable.Namespaced.class)
                                 .setLocalVariable(Integer.parseInt(sa[0]), localVariable);
-                        index = processTree2(index, size, content, localVariable);
-                    }
-                    default -> error();
+                        processTree2(content, localVariable);
+                    } else processTree2(content, null);
                 }
-            } else break;
+                default -> error();
+            }
         }
-        return index - 1;
     }
 
-    private static int processTree2(int index, int size, List<String> content, NamespacedMapping localVariable) {
-        if (++index < size) {
-            String s = content.get(index);
-            if (s.startsWith("\t\t\t")) {
-                if (s.charAt(3) == 'c') localVariable.getComponent(Documented.class).setContentString(TinyUtil.unescape(s, 5));
-                else error();
-                return index;
-            }
+    /**
+     * @param localVariable The local variable, or null to skip the comment
+     */
+    private static void processTree2(LineCursor content, NamespacedMapping localVariable) {
+        String s = content.peek();
+        if (s != null && s.startsWith("\t\t\t")) {
+            content.next();
+            if (s.charAt(3) != 'c') error();
+            Documented doc = localVariable == null ? null : localVariable.getComponent(Documented.class);
+            if (doc != null) doc.setContentString(TinyUtil.unescape(s, 5));
         }
-        return index - 1;
     }
 
     private static void error() {
@@ -24,6 +24,7 @@ import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 
 import java.util.List;
 
@@ -37,17 +38,26 @@ public enum TsrgV1MappingProcessor implements MappingProcessor.Classified<Paired
 
     @Override
     public ClassifiedMapping<PairedMapping> process(List<String> content) {
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<PairedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
         ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
-        for (int i = 0, len = content.size(); i < len;) {
-            String[] sa = MappingUtil.split(content.get(i), ' ');
+        for (String s; (s = content.next()) != null; ) {
+            String[] sa = MappingUtil.split(s, ' ');
             if (sa[0].charAt(0) != '\t') {
                 if (sa[0].charAt(sa[0].length() - 1) == '/') {
                     mappings.packages.add(new PairedMapping(sa[0].substring(0, sa[0].length() - 1),
                             sa[1].substring(0, sa[1].length() - 1)));
-                    i++;
                 } else {
-                    ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(sa[0], sa[1]));
-                    i = processTree(i, len, content, classMapping);
+                    ClassMapping<PairedMapping> classMapping = new ClassMapping<>(new PairedMapping(pool.intern(sa[0]), pool.intern(sa[1])));
+                    processTree(content, classMapping, pool);
                     mappings.classes.add(classMapping);
                 }
             } else error();
@@ -55,19 +65,16 @@ public enum TsrgV1MappingProcessor implements MappingProcessor.Classified<Paired
         return mappings;
     }
 
-    private static int processTree(int index, int size, List<String> content, ClassMapping<PairedMapping> classMapping) {
-        for (index = index + 1; index < size; index++) {
-            String s = content.get(index);
-            if (s.charAt(0) == '\t') {
-                String[] sa = MappingUtil.split(s, ' ', 1);
-                switch (sa.length) {
-                    case 2 -> classMapping.addField(MappingUtil.Paired.o(sa[0], sa[1]));
-                    case 3 -> classMapping.addMethod(MappingUtil.Paired.duo(sa[0], sa[2], sa[1]));
-                    default -> error();
-                }
-            } else break;
+    private static void processTree(LineCursor content, ClassMapping<PairedMapping> classMapping, StringPool pool) {
+        for (String s; (s = content.peek()) != null && s.charAt(0) == '\t'; ) {
+            content.next();
+            String[] sa = MappingUtil.split(s, ' ', 1);
+            switch (sa.length) {
+                case 2 -> classMapping.addField(MappingUtil.Paired.o(pool.intern(sa[0]), sa[1]));
+                case 3 -> classMapping.addMethod(MappingUtil.Paired.duo(pool.intern(sa[0]), sa[2], pool.intern(sa[1])));
+                default -> error();
+            }
         }
-        return index;
     }
 
     private static void error() {
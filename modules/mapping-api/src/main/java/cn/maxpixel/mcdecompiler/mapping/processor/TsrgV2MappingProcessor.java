@@ -27,6 +27,7 @@ import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
 import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 
 import java.util.List;
 
@@ -40,21 +41,34 @@ public enum TsrgV2MappingProcessor implements MappingProcessor.Classified<Namesp
 
     @Override
     public ClassifiedMapping<NamespacedMapping> process(List<String> content) {
-        if(!content.get(0).startsWith("tsrg2")) error();
-        String[] namespaces = MappingUtil.split(content.get(0), ' ', 6);
+        return process(LineCursor.of(content));
+    }
+
+    @Override
+    public ClassifiedMapping<NamespacedMapping> process(LineCursor content) {
+        return process(content, new StringPool());
+    }
+
+    @Override
+    public ClassifiedMapping<NamespacedMapping> process(LineCursor content, StringPool pool, ParseProfile profile) {
+        String header = content.next();
+        if (header == null || !header.startsWith("tsrg2")) error();
+        String[] namespaces = MappingUtil.split(header, ' ', 6);
+        pool.intern(namespaces, 0, namespaces.length);
         var trait = new NamespacedTrait(namespaces);
         trait.setUnmappedNamespace(namespaces[0]);
         ClassifiedMapping<NamespacedMapping> mappings = new ClassifiedMapping<>(trait);
-        for (int i = 1, len = content.size(); i < len; ) {
-            String[] sa = MappingUtil.split(content.get(i), ' ');
+        boolean lvt = profile.needs(LocalVariableTable.Namespaced.class);
+        for (String s; (s = content.next()) != null; ) {
+            String[] sa = MappingUtil.split(s, ' ');
             if (sa[0].charAt(0) != '\t') {
                 if (sa[0].charAt(sa[0].length() - 1) == '/') {
                     for (int j = 0; j < sa.length; j++) sa[j] = sa[j].substring(0, sa[j].length() - 1);
                     mappings.packages.add(new NamespacedMapping(namespaces, sa));
-                    i++;
                 } else {
-                    ClassMapping<NamespacedMapping> classMapping = new ClassMapping<>(new NamespacedMapping(namespaces, sa));
-                    i = processTree(i, len, namespaces, content, classMapping);
+                    ClassMapping<NamespacedMapping> classMapping = new ClassMapping<>(new NamespacedMapping(namespaces,
+                            pool.intern(sa, 0, sa.length)));
+                    processTree(namespaces, content, classMapping, pool, lvt);
                     mappings.classes.add(classMapping);
                 }
             } else error();
@@ -63,47 +77,43 @@ public enum TsrgV2MappingProcessor implements MappingProcessor.Classified<Namesp
         return mappings;
     }
 
-    private static int processTree(int index, int size, String[] namespaces, List<String> content,
-                                   ClassMapping<NamespacedMapping> classMapping) {
-        for (index = index + 1; index < size; index++) {
-            String s = content.get(index);
-            if (s.charAt(0) == '\t') {
-                String[] sa = MappingUtil.split(s, ' ', 1);
-                switch (sa.length - namespaces.length) {
-                    case 0 -> classMapping.addField(MappingUtil.Namespaced.o(namespaces, sa));
-                    case 1 -> {
-                        String desc = sa[1];
-                        sa[1] = sa[0];
-                        if (desc.charAt(0) == '(') {
-                            NamespacedMapping methodMapping = MappingUtil.Namespaced.slduo(
-                                    namespaces, sa, 1, namespaces[0], desc);
-                            index = processTree1(index, size, namespaces, content, methodMapping);
-                            classMapping.addMethod(methodMapping);
-                        } else {
-                            classMapping.addField(MappingUtil.Namespaced.duo(namespaces,
-                                    sa, 1, namespaces[0], desc));
-                        }
+    private static void processTree(String[] namespaces, LineCursor content, ClassMapping<NamespacedMapping> classMapping,
+                                    StringPool pool, boolean lvt) {
+        for (String s; (s = content.peek()) != null && s.charAt(0) == '\t'; ) {
+            content.next();
+            String[] sa = MappingUtil.split(s, ' ', 1);
+            sa[0] = pool.intern(sa[0]);
+            switch (sa.length - namespaces.length) {
+                case 0 -> classMapping.addField(MappingUtil.Namespaced.o(namespaces, sa));
+                case 1 -> {
+                    String desc = pool.intern(sa[1]);
+                    sa[1] = sa[0];
+                    if (desc.charAt(0) == '(') {
+                        NamespacedMapping methodMapping = lvt ? MappingUtil.Namespaced.slduo(namespaces, sa, 1, namespaces[0], desc) :
+                                MappingUtil.Namespaced.duo(namespaces, sa, 1, namespaces[0], desc);
+                        if (!lvt) methodMapping.addComponent(new StaticIdentifiable());
+                        processTree1(namespaces, content, methodMapping, lvt);
+                        classMapping.addMethod(methodMapping);
+                    } else {
+                        classMapping.addField(MappingUtil.Namespaced.duo(namespaces,
+                                sa, 1, namespaces[0], desc));
                     }
-                    default -> error();
                 }
-            } else break;
+                default -> error();
+            }
         }
-        return index;
     }
 
-    private static int processTree1(int index, int size, String[] namespaces, List<String> content, NamespacedMapping methodMapping) {
-        for (index = index + 1; index < size; index++) {
-            String s = content.get(index);
-            if (s.charAt(1) == '\t') {
-                if (s.equals("\t\tstatic")) methodMapping.getComponent(StaticIdentifiable.class).setStatic(true);
-                else {
-                    String[] sa = MappingUtil.split(s, ' ', 2);
-                    methodMapping.getComponent(LocalVariableTable.Namespaced.class)
-                            .setLocalVariable(Integer.parseInt(sa[0]), new NamespacedMapping(namespaces, sa, 1));
-                }
-            } else break;
+    private static void processTree1(String[] namespaces, LineCursor content, NamespacedMapping methodMapping, boolean lvt) {
+        for (String s; (s = content.peek()) != null && s.charAt(1) == '\t'; ) {
+            content.next();
+            if (s.equals("\t\tstatic")) methodMapping.getComponent(StaticIdentifiable.class).setStatic(true);
+            else if (lvt) {
+                String[] sa = MappingUtil.split(s, ' ', 2);
+                methodMapping.getComponent(LocalVariableTable.Namespaced.class)
+                        .setLocalVariable(Integer.parseInt(sa[0]), new NamespacedMapping(namespaces, sa, 1));
+            }
         }
-        return index - 1;
     }
 
     private static void error() {
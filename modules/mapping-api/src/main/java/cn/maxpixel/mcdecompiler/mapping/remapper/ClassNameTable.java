@@ -0,0 +1,90 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.remapper;
+
+import cn.maxpixel.mcdecompiler.mapping.Mapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * Immutable table of class names which can be probed with a range of chars, so descriptors don't need to be split
+ * into substrings to look up the classes in them.
+ */
+final class ClassNameTable {
+    private final int mask;
+    private final int[] hashes;
+    private final String[] keys;
+    private final String[] values;
+
+    ClassNameTable(Object2ObjectMap<String, ? extends ClassMapping<? extends Mapping>> map,
+                   Function<ClassMapping<? extends Mapping>, String> value) {
+        this(map.size());
+        for (var entry : Object2ObjectMaps.fastIterable(map)) put(entry.getKey(), value.apply(entry.getValue()));
+    }
+
+    /**
+     * @param keys Class names
+     * @param values Values of the class names. Entries with null keys or values are skipped
+     */
+    ClassNameTable(String[] keys, String[] values) {
+        this(keys.length);
+        for (int i = 0; i < keys.length; i++) put(keys[i], values[i]);
+    }
+
+    private ClassNameTable(int size) {
+        int capacity = HashCommon.arraySize(size, 0.5f);
+        this.mask = capacity - 1;
+        this.hashes = new int[capacity];
+        this.keys = new String[capacity];
+        this.values = new String[capacity];
+    }
+
+    private void put(String key, String value) {
+        if (key == null || value == null) return;
+        int hash = key.hashCode();
+        int slot = HashCommon.mix(hash) & mask;
+        while (keys[slot] != null) slot = (slot + 1) & mask;
+        hashes[slot] = hash;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * Gets the value of the class name in the given range
+     * @param s The string containing the class name
+     * @param start Start of the class name, inclusive
+     * @param end End of the class name, exclusive
+     * @return The value, or null if absent
+     */
+    @Nullable String get(String s, int start, int end) {
+        int hash = 0;// same as String.hashCode()
+        for (int i = start; i < end; i++) hash = 31 * hash + s.charAt(i);
+        int len = end - start;
+        for (int slot = HashCommon.mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key == null) return null;
+            if (hashes[slot] == hash && key.length() == len && key.regionMatches(0, s, start, len)) return values[slot];
+        }
+    }
+}
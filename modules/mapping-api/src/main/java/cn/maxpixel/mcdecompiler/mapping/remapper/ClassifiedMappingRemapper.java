@@ -20,6 +20,7 @@ package cn.maxpixel.mcdecompiler.mapping.remapper;
 
 import cn.maxpixel.mcdecompiler.mapping.Mapping;
 import cn.maxpixel.mcdecompiler.mapping.NameGetter;
+import cn.maxpixel.mcdecompiler.mapping.NameView;
 import cn.maxpixel.mcdecompiler.mapping.NamespacedMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
@@ -27,43 +28,74 @@ import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
 import cn.maxpixel.mcdecompiler.mapping.component.StaticIdentifiable;
 import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
 import cn.maxpixel.mcdecompiler.mapping.util.Utils;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class ClassifiedMappingRemapper implements MappingRemapper {
-    private final Object2ObjectOpenHashMap<String, ? extends Object2ObjectOpenHashMap<String, ? extends Mapping>> fieldByUnm;
-    private final Object2ObjectOpenHashMap<String, ? extends Object2ObjectOpenHashMap<String,
-            ? extends Object2ObjectOpenHashMap<String, ? extends Mapping>>> methodsByUnm;
+    private final NameView view;
     private final Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByUnm;
     private final Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByMap;
     private final DescriptorRemapper descriptorRemapper;
-    private boolean methodStaticIdentifiable;
+    private final boolean methodStaticIdentifiable;
+
+    // (owner, name, null) -> field
+    private final MemberTable<Mapping> fields;
+    // (owner, name, unmapped descriptor) -> method
+    private final MemberTable<Mapping> methods;
 
     public ClassifiedMappingRemapper(ClassifiedMapping<?> mappings) {
-        this.fieldByUnm = genFieldsByUnmappedNameMap(mappings.classes);
-        this.mappingByUnm = genMappingsByUnmappedNameMap(mappings.classes);
-        this.mappingByMap = genMappingsByMappedNameMap(mappings.classes);
-        this.descriptorRemapper = new DescriptorRemapper(mappingByUnm, mappingByMap);
+        this(mappings, NameView.CURRENT);
+    }
+
+    /**
+     * Constructor
+     * @param mappings The mappings. They are not modified
+     * @param view The view to get the names of the mappings through
+     */
+    public ClassifiedMappingRemapper(ClassifiedMapping<?> mappings, NameView view) {
+        this.view = Objects.requireNonNull(view);
+        this.mappingByUnm = genMappingsByNameMap(mappings.classes, view::getUnmappedName);
+        this.mappingByMap = genMappingsByNameMap(mappings.classes, view::getMappedName);
+        this.descriptorRemapper = new DescriptorRemapper(new ClassNameTable(mappingByUnm, cm -> view.getMappedName(cm.mapping)),
+                new ClassNameTable(mappingByMap, cm -> view.getUnmappedName(cm.mapping)));
         var namespaced = mappings.getTrait(NamespacedTrait.class);
-        var remapperMap = namespaced != null ? new Object2ObjectOpenHashMap<String, UniDescriptorRemapper>() : null;
-        this.methodsByUnm = mappings.classes.parallelStream().collect(Collectors.toMap(cm -> cm.mapping.getUnmappedName(), cm -> {
-            Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, Mapping>> map =
-                    new Object2ObjectOpenHashMap<>();
-            for (Mapping mm : cm.getMethods()) {
-                var m = map.computeIfAbsent(mm.getUnmappedName(), k -> new Object2ObjectOpenHashMap<>());
-                if (!methodStaticIdentifiable && mm.hasComponent(StaticIdentifiable.class)) methodStaticIdentifiable = true;
-                if (m.putIfAbsent(namespaced == null ? getUnmappedDesc(mm) : getUnmappedDesc(mm, namespaced.getUnmappedNamespace(),
-                        remapperMap, (ClassifiedMapping<NamespacedMapping>) mappings), mm) != null) {
-                    throw new IllegalArgumentException("Method duplicated... This should not happen!");
-                }
+        String unmappedNamespace = namespaced == null ? null :
+                view instanceof NameView.Namespaced n ? n.unmappedNamespace() : namespaced.getUnmappedNamespace();
+        var remapperMap = namespaced != null ? genDescriptorRemappers((ClassifiedMapping<NamespacedMapping>) mappings,
+                unmappedNamespace, view) : null;
+        // Unmapping the descriptors is the expensive part, so do it in parallel before building the tables.
+        // Only reads are done here, all the descriptor remappers needed are created above
+        String[][] descriptors = mappings.classes.parallelStream().map(cm -> {
+            ObjectList<? extends Mapping> ms = cm.getMethods();
+            String[] descs = new String[ms.size()];
+            for (int i = 0; i < descs.length; i++) {
+                Mapping mm = ms.get(i);
+                descs[i] = namespaced == null ? getUnmappedDesc(mm) : getUnmappedDesc(mm, unmappedNamespace, remapperMap);
+            }
+            return descs;
+        }).toArray(String[][]::new);
+        boolean staticIdentifiable = false;
+        MemberTable.Builder<Mapping> fields = new MemberTable.Builder<>();
+        MemberTable.Builder<Mapping> methods = new MemberTable.Builder<>();
+        for (int c = 0; c < descriptors.length; c++) {
+            ClassMapping<? extends Mapping> cm = mappings.classes.get(c);
+            String owner = view.getUnmappedName(cm.mapping);
+            for (Mapping field : cm.getFields()) fields.put(owner, view.getUnmappedName(field), null, field);
+            ObjectList<? extends Mapping> ms = cm.getMethods();
+            for (int i = 0; i < ms.size(); i++) {
+                Mapping mm = ms.get(i);
+                if (!staticIdentifiable && mm.hasComponent(StaticIdentifiable.class)) staticIdentifiable = true;
+                methods.put(owner, view.getUnmappedName(mm), descriptors[c][i], mm);
             }
-            return map;
-        }, Utils::onKeyDuplicate, Object2ObjectOpenHashMap::new));
+        }
+        this.methodStaticIdentifiable = staticIdentifiable;
+        this.fields = fields.build(true);
+        this.methods = methods.build(true);
     }
 
     @Override
@@ -79,43 +111,49 @@ public class ClassifiedMappingRemapper implements MappingRemapper {
     @Override
     public @Nullable("When no corresponding mapping found") String mapClass(@NotNull String name) {
         ClassMapping<? extends Mapping> classMapping = mappingByUnm.get(name);
-        if (classMapping != null) return classMapping.mapping.getMappedName();
+        if (classMapping != null) return view.getMappedName(classMapping.mapping);
         return null;
     }
 
     @Override
     public @Nullable("When no corresponding mapping found") String unmapClass(@NotNull String name) {
         ClassMapping<? extends Mapping> classMapping = mappingByMap.get(name);
-        if (classMapping != null) return classMapping.mapping.getUnmappedName();
+        if (classMapping != null) return view.getUnmappedName(classMapping.mapping);
         return null;
     }
 
     @Override
     public @Nullable("When no corresponding mapping found") String mapField(@NotNull String owner, @NotNull String name) {
-        var fields = fieldByUnm.get(owner);
-        if (fields != null) {
-            var mapping = fields.get(name);
-            if (mapping != null) return mapping.getMappedName();
-        }
-        return null;
+        Mapping mapping = fields.get(owner, name, null);
+        return mapping != null ? view.getMappedName(mapping) : null;
     }
 
     @Override
     public @Nullable("When no corresponding mapping found") String mapMethod(@NotNull String owner, @NotNull String name,
                                      @Nullable("When desc doesn't matter") String desc) {
-        var methods = methodsByUnm.get(owner);
-        if (methods != null) {
-            var mappings = methods.get(name);
-            if (mappings != null) {
-                if (desc == null) {
-                    if (!mappings.isEmpty()) return mappings.values().iterator().next().getMappedName();
-                } else {
-                    var mapping = mappings.get(desc);
-                    if (mapping != null) return mapping.getMappedName();
-                }
-            }
-        }
-        return null;
+        Mapping mapping = desc == null ? methods.getAny(owner, name) : methods.get(owner, name, desc);
+        return mapping != null ? view.getMappedName(mapping) : null;
+    }
+
+    @Override
+    public boolean canVisitMembers() {
+        return true;
+    }
+
+    @Override
+    public void visitMethods(@NotNull String owner, @NotNull MemberVisitor visitor) {
+        methods.forEach(owner, (name, desc, mapping) -> {
+            String mapped = view.getMappedName(mapping);
+            if (mapped != null) visitor.visit(name, desc, mapped);
+        });
+    }
+
+    @Override
+    public void visitFields(@NotNull String owner, @NotNull MemberVisitor visitor) {
+        fields.forEach(owner, (name, desc, mapping) -> {
+            String mapped = view.getMappedName(mapping);
+            if (mapped != null) visitor.visit(name, null, mapped);
+        });
     }
 
     @Override
@@ -123,14 +161,23 @@ public class ClassifiedMappingRemapper implements MappingRemapper {
         return descriptorRemapper;
     }
 
+    /**
+     * @return The view the names of the mappings are got through
+     */
+    public NameView getNameView() {
+        return view;
+    }
+
     public ClassMapping<? extends Mapping> getClassMappingUnmapped(@NotNull String name) {
         return mappingByUnm.get(name);
     }
 
     public String getUnmappedDesc(Mapping mapping) {
-        if (mapping.hasComponent(Descriptor.Unmapped.class)) return mapping.getComponent(Descriptor.Unmapped.class).descriptor;
-        else if (mapping.hasComponent(Descriptor.Mapped.class))
-            return unmapMethodDesc(mapping.getComponent(Descriptor.Mapped.class).descriptor);
+        // The unmapped and the mapped descriptors are swapped in reversed views
+        Class<? extends Descriptor> unmapped = view.isReversed() ? Descriptor.Mapped.class : Descriptor.Unmapped.class;
+        Class<? extends Descriptor> mapped = view.isReversed() ? Descriptor.Unmapped.class : Descriptor.Mapped.class;
+        if (mapping.hasComponent(unmapped)) return mapping.<Descriptor>getComponent(unmapped).descriptor;
+        else if (mapping.hasComponent(mapped)) return unmapMethodDesc(mapping.<Descriptor>getComponent(mapped).descriptor);
         else throw new IllegalArgumentException("Mapping for methods must support at least one of the descriptor components");
     }
 
@@ -143,6 +190,36 @@ public class ClassifiedMappingRemapper implements MappingRemapper {
         else throw new IllegalArgumentException("Mapping for methods must support at least one of the descriptor components");
     }
 
+    private static String getUnmappedDesc(Mapping mapping, String unmappedNamespace, Object2ObjectMap<String, UniDescriptorRemapper> map) {
+        var desc = mapping.getComponent(Descriptor.Namespaced.class);
+        if (desc != null) return unmappedNamespace.equals(desc.descriptorNamespace) ? desc.descriptor :
+                map.get(desc.descriptorNamespace).unmapMethodDesc(desc.descriptor);
+        else throw new IllegalArgumentException("Mapping for methods must support at least one of the descriptor components");
+    }
+
+    /**
+     * Creates the descriptor remappers of all the namespaces which the method descriptors are in, except the unmapped namespace
+     * @return Descriptor remappers keyed by namespace. The map is not modified afterwards, so it can be read concurrently
+     */
+    private static Object2ObjectMap<String, UniDescriptorRemapper> genDescriptorRemappers(ClassifiedMapping<NamespacedMapping> mappings,
+                                                                                          String unmappedNamespace, NameView view) {
+        ObjectArrayList<String> namespaces = mappings.classes.parallelStream()
+                .flatMap(cm -> cm.getMethods().stream())
+                .map(m -> m.getComponent(Descriptor.Namespaced.class))
+                .filter(d -> d != null && !unmappedNamespace.equals(d.descriptorNamespace))
+                .map(d -> d.descriptorNamespace)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toCollection(ObjectArrayList::new));
+        Object2ObjectOpenHashMap<String, UniDescriptorRemapper> map = new Object2ObjectOpenHashMap<>(namespaces.size());
+        for (String namespace : namespaces) {
+            var byNamespace = genMappingsByNamespaceMap(mappings.classes, namespace);
+            map.put(namespace, new UniDescriptorRemapper(new ClassNameTable(byNamespace, cm -> view.getMappedName(cm.mapping)),
+                    new ClassNameTable(byNamespace, cm -> view.getUnmappedName(cm.mapping))));
+        }
+        return Object2ObjectMaps.unmodifiable(map);
+    }
+
     public static <T extends Mapping> Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, T>> genFieldsByUnmappedNameMap(
             ObjectList<ClassMapping<T>> mapping) {
         return mapping.parallelStream().collect(Collectors.toMap(
@@ -164,6 +241,12 @@ public class ClassifiedMappingRemapper implements MappingRemapper {
                 Function.identity(), Utils::onKeyDuplicate, Object2ObjectOpenHashMap::new));
     }
 
+    private static Object2ObjectOpenHashMap<String, ClassMapping<? extends Mapping>> genMappingsByNameMap(
+            ObjectList<? extends ClassMapping<? extends Mapping>> mapping, Function<Mapping, String> name) {
+        return mapping.parallelStream().collect(Collectors.toMap(cm -> name.apply(cm.mapping),
+                Function.identity(), Utils::onKeyDuplicate, Object2ObjectOpenHashMap::new));
+    }
+
     public static Object2ObjectOpenHashMap<String, ClassMapping<NamespacedMapping>> genMappingsByNamespaceMap(
             ObjectList<ClassMapping<NamespacedMapping>> mapping, String namespace) {
         return mapping.parallelStream().collect(Collectors.toMap(m -> m.mapping.getName(namespace),
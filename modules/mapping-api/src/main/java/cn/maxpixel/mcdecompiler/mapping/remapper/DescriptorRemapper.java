@@ -24,18 +24,18 @@ import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
-import org.jetbrains.annotations.NotNull;
 
 /**
  * Lightweight remapper for descriptors in place of the general heavyweight {@link MappingRemapper}s.
  */
 public class DescriptorRemapper extends UniDescriptorRemapper {
-    private final Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByMap;
-
     public DescriptorRemapper(Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByUnm,
                               Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByMap) {
-        super(mappingByUnm);
-        this.mappingByMap = mappingByMap;
+        super(mappingByUnm, mappingByMap);
+    }
+
+    DescriptorRemapper(ClassNameTable mapTable, ClassNameTable unmapTable) {
+        super(mapTable, unmapTable);
     }
 
     public DescriptorRemapper(ClassifiedMapping<?> collection) {
@@ -55,10 +55,4 @@ public class DescriptorRemapper extends UniDescriptorRemapper {
         return collection;
     }
 
-    @Override
-    protected String unmapClass(@NotNull String name) {
-        ClassMapping<? extends Mapping> classMapping = mappingByMap.get(name);
-        if (classMapping != null) return classMapping.mapping.getUnmappedName();
-        return name;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,377 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.remapper;
+
+import cn.maxpixel.mcdecompiler.mapping.Mapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Read-only, memory-mapped snapshot of a {@link ClassifiedMappingRemapper}.<br>
+ * The index is built once from a {@link ClassifiedMapping} with {@link #write}, and is queried directly from the mapped
+ * file after {@link #open}, so no mapping text is parsed and no table is built when starting up.
+ * Strings are decoded when they are first used.
+ * <p>
+ * Only the names and the descriptors are kept, so the other components of the mappings(e.g. local variables) are not
+ * available through an index.
+ * <p>
+ * Format(big-endian): header, string offsets, class records, class table, unmap table, field records, field table,
+ * method records, method table, string data. Tables are open-addressing tables of (hash, record index) pairs, records
+ * refer to strings and classes by their indexes.
+ */
+public final class MappingIndex implements MappingRemapper {
+    private static final int MAGIC = 0x4D444D49;// MDMI
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 11 * 4;
+    private static final int STATIC_IDENTIFIABLE = 1;
+    private static final int NONE = -1;
+
+    private static final int CLASS_RECORD = 6;// name, mapped name, first field, field count, first method, method count
+    private static final int FIELD_RECORD = 3;// owner, name, mapped name
+    private static final int METHOD_RECORD = 4;// owner, name, descriptor, mapped name
+
+    private final ByteBuffer buf;
+    private final boolean methodStaticIdentifiable;
+    private final int classCount;
+    private final int stringOffsets;
+    private final int classRecords;
+    private final int classTable, classMask;
+    private final int unmapTable, unmapMask;
+    private final int fieldRecords;
+    private final int fieldTable, fieldMask;
+    private final int methodRecords;
+    private final int methodTable, methodMask;
+    private final String[] strings;
+    private volatile DescriptorRemapper descriptorRemapper;
+
+    private MappingIndex(ByteBuffer buf) throws IOException {
+        if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) throw new IOException("Not a mapping index");
+        if (buf.getInt(4) != VERSION) throw new IOException("Unsupported mapping index version " + buf.getInt(4));
+        this.buf = buf;
+        this.methodStaticIdentifiable = (buf.getInt(8) & STATIC_IDENTIFIABLE) != 0;
+        int stringCount = buf.getInt(12);
+        this.classCount = buf.getInt(16);
+        int classCapacity = buf.getInt(20);
+        int unmapCapacity = buf.getInt(24);
+        int fieldCount = buf.getInt(28);
+        int fieldCapacity = buf.getInt(32);
+        int methodCount = buf.getInt(36);
+        int methodCapacity = buf.getInt(40);
+        this.strings = new String[stringCount];
+        this.stringOffsets = HEADER_SIZE;
+        this.classRecords = stringOffsets + (stringCount + 1) * 4;
+        this.classTable = classRecords + classCount * CLASS_RECORD * 4;
+        this.classMask = classCapacity - 1;
+        this.unmapTable = classTable + classCapacity * 8;
+        this.unmapMask = unmapCapacity - 1;
+        this.fieldRecords = unmapTable + unmapCapacity * 8;
+        this.fieldTable = fieldRecords + fieldCount * FIELD_RECORD * 4;
+        this.fieldMask = fieldCapacity - 1;
+        this.methodRecords = fieldTable + fieldCapacity * 8;
+        this.methodTable = methodRecords + methodCount * METHOD_RECORD * 4;
+        this.methodMask = methodCapacity - 1;
+        int stringData = methodTable + methodCapacity * 8;
+        if (stringData < 0 || stringData > buf.capacity() || buf.getInt(stringOffsets) != stringData ||
+                buf.getInt(classRecords - 4) != buf.capacity()) throw new IOException("Corrupted mapping index");
+    }
+
+    /**
+     * Opens an index. The file is mapped, and is unmapped when the index is garbage collected
+     * @param path Path to the index
+     * @return The index
+     * @throws IOException If the file cannot be read or is not a valid index
+     */
+    public static @NotNull MappingIndex open(@NotNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappingIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Builds an index of the mappings and writes it.<br>
+     * The index has the same results as a {@link ClassifiedMappingRemapper} created from the mappings
+     * @param mappings The mappings. Namespaced mappings must have their namespaces set
+     * @param path Path to write the index to. The file is replaced atomically if possible
+     */
+    public static void write(@NotNull ClassifiedMapping<?> mappings, @NotNull Path path) throws IOException {
+        ClassifiedMappingRemapper remapper = new ClassifiedMappingRemapper(mappings);
+        ObjectArrayList<String> strings = new ObjectArrayList<>();// The string pool, records refer to strings by their indexes
+        Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+        ids.defaultReturnValue(NONE);
+        int n = mappings.classes.size();
+        int[] classes = new int[n * CLASS_RECORD];
+        IntArrayList fields = new IntArrayList();
+        IntArrayList methods = new IntArrayList();
+        for (int c = 0; c < n; c++) {
+            ClassMapping<? extends Mapping> cm = mappings.classes.get(c);
+            String owner = cm.mapping.getUnmappedName();
+            int base = c * CLASS_RECORD, ci = c;
+            classes[base] = id(ids, strings, owner);
+            classes[base + 1] = id(ids, strings, remapper.mapClass(owner));
+            classes[base + 2] = fields.size() / FIELD_RECORD;
+            remapper.visitFields(owner, (name, desc, mapped) -> {
+                fields.add(ci);
+                fields.add(id(ids, strings, name));
+                fields.add(id(ids, strings, mapped));
+            });
+            classes[base + 3] = fields.size() / FIELD_RECORD - classes[base + 2];
+            classes[base + 4] = methods.size() / METHOD_RECORD;
+            remapper.visitMethods(owner, (name, desc, mapped) -> {
+                methods.add(ci);
+                methods.add(id(ids, strings, name));
+                methods.add(id(ids, strings, desc));
+                methods.add(id(ids, strings, mapped));
+            });
+            classes[base + 5] = methods.size() / METHOD_RECORD - classes[base + 4];
+        }
+        int fieldCount = fields.size() / FIELD_RECORD, methodCount = methods.size() / METHOD_RECORD;
+        int[] classTable = newTable(n), unmapTable = newTable(n);
+        int[] fieldTable = newTable(fieldCount), methodTable = newTable(methodCount);
+        for (int c = 0; c < n; c++) {
+            int base = c * CLASS_RECORD;
+            putTable(classTable, HashCommon.mix(strings.get(classes[base]).hashCode()), c);
+            if (classes[base + 1] != NONE) putTable(unmapTable, HashCommon.mix(strings.get(classes[base + 1]).hashCode()), c);
+        }
+        for (int f = 0; f < fieldCount; f++) {
+            int base = f * FIELD_RECORD;
+            putTable(fieldTable, MemberTable.hash(strings.get(classes[fields.getInt(base) * CLASS_RECORD]),
+                    strings.get(fields.getInt(base + 1)), null), f);
+        }
+        for (int m = 0; m < methodCount; m++) {
+            int base = m * METHOD_RECORD;
+            putTable(methodTable, MemberTable.hash(strings.get(classes[methods.getInt(base) * CLASS_RECORD]),
+                    strings.get(methods.getInt(base + 1)), strings.get(methods.getInt(base + 2))), m);
+        }
+
+        byte[][] data = new byte[strings.size()][];
+        for (int i = 0; i < data.length; i++) data[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+        Path parent = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(Files.createDirectories(parent), path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(remapper.isMethodStaticIdentifiable() ? STATIC_IDENTIFIABLE : 0);
+                out.writeInt(data.length);
+                out.writeInt(n);
+                out.writeInt(classTable.length / 2);
+                out.writeInt(unmapTable.length / 2);
+                out.writeInt(fieldCount);
+                out.writeInt(fieldTable.length / 2);
+                out.writeInt(methodCount);
+                out.writeInt(methodTable.length / 2);
+                long offset = HEADER_SIZE + (data.length + 1L) * 4 + (classes.length + classTable.length + unmapTable.length +
+                        fields.size() + fieldTable.length + methods.size() + methodTable.length) * 4L;
+                for (byte[] bytes : data) {
+                    out.writeInt((int) offset);
+                    offset += bytes.length;
+                }
+                if (offset > Integer.MAX_VALUE) throw new IOException("Mappings too large to be indexed");
+                out.writeInt((int) offset);
+                for (int i : classes) out.writeInt(i);
+                for (int i : classTable) out.writeInt(i);
+                for (int i : unmapTable) out.writeInt(i);
+                for (int i = 0; i < fields.size(); i++) out.writeInt(fields.getInt(i));
+                for (int i : fieldTable) out.writeInt(i);
+                for (int i = 0; i < methods.size(); i++) out.writeInt(methods.getInt(i));
+                for (int i : methodTable) out.writeInt(i);
+                for (byte[] bytes : data) out.write(bytes);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static int id(Object2IntOpenHashMap<String> ids, ObjectArrayList<String> strings, @Nullable String s) {
+        if (s == null) return NONE;
+        int id = ids.getInt(s);
+        if (id == NONE) {
+            id = strings.size();
+            ids.put(s, id);
+            strings.add(s);
+        }
+        return id;
+    }
+
+    private static int[] newTable(int size) {
+        int[] table = new int[HashCommon.arraySize(size, 0.5f) * 2];
+        for (int i = 1; i < table.length; i += 2) table[i] = NONE;
+        return table;
+    }
+
+    private static void putTable(int[] table, int hash, int record) {
+        int mask = table.length / 2 - 1;
+        int slot = hash & mask;
+        while (table[slot * 2 + 1] != NONE) slot = (slot + 1) & mask;
+        table[slot * 2] = hash;
+        table[slot * 2 + 1] = record;
+    }
+
+    private @Nullable String string(int id) {
+        if (id == NONE) return null;
+        String s = strings[id];
+        if (s == null) {// Strings are immutable, so racing here only decodes a string more than once
+            int start = buf.getInt(stringOffsets + id * 4);
+            byte[] bytes = new byte[buf.getInt(stringOffsets + id * 4 + 4) - start];
+            buf.get(start, bytes);
+            strings[id] = s = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    private int classField(int record, int field) {
+        return buf.getInt(classRecords + (record * CLASS_RECORD + field) * 4);
+    }
+
+    private int findClass(String name) {
+        int hash = HashCommon.mix(name.hashCode());
+        for (int slot = hash & classMask; ; slot = (slot + 1) & classMask) {
+            int record = buf.getInt(classTable + slot * 8 + 4);
+            if (record == NONE) return NONE;
+            if (buf.getInt(classTable + slot * 8) == hash && name.equals(string(classField(record, 0)))) return record;
+        }
+    }
+
+    @Override
+    public boolean hasClassMapping(String name) {
+        return findClass(name) != NONE;
+    }
+
+    @Override
+    public boolean isMethodStaticIdentifiable() {
+        return methodStaticIdentifiable;
+    }
+
+    @Override
+    public @Nullable("When no corresponding mapping found") String mapClass(@NotNull String name) {
+        int record = findClass(name);
+        return record == NONE ? null : string(classField(record, 1));
+    }
+
+    @Override
+    public @Nullable("When no corresponding mapping found") String unmapClass(@NotNull String name) {
+        int hash = HashCommon.mix(name.hashCode());
+        for (int slot = hash & unmapMask; ; slot = (slot + 1) & unmapMask) {
+            int record = buf.getInt(unmapTable + slot * 8 + 4);
+            if (record == NONE) return null;
+            if (buf.getInt(unmapTable + slot * 8) == hash && name.equals(string(classField(record, 1)))) {
+                return string(classField(record, 0));
+            }
+        }
+    }
+
+    @Override
+    public @Nullable("When no corresponding mapping found") String mapField(@NotNull String owner, @NotNull String name) {
+        int hash = MemberTable.hash(owner, name, null);
+        for (int slot = hash & fieldMask; ; slot = (slot + 1) & fieldMask) {
+            int record = buf.getInt(fieldTable + slot * 8 + 4);
+            if (record == NONE) return null;
+            int base = fieldRecords + record * FIELD_RECORD * 4;
+            if (buf.getInt(fieldTable + slot * 8) == hash && name.equals(string(buf.getInt(base + 4))) &&
+                    owner.equals(string(classField(buf.getInt(base), 0)))) return string(buf.getInt(base + 8));
+        }
+    }
+
+    @Override
+    public @Nullable("When no corresponding mapping found") String mapMethod(@NotNull String owner, @NotNull String name,
+                                                                              @Nullable("When desc doesn't matter") String desc) {
+        if (desc == null) {
+            int record = findClass(owner);
+            if (record == NONE) return null;
+            for (int m = classField(record, 4), end = m + classField(record, 5); m < end; m++) {
+                int base = methodRecords + m * METHOD_RECORD * 4;
+                if (name.equals(string(buf.getInt(base + 4)))) return string(buf.getInt(base + 12));
+            }
+            return null;
+        }
+        int hash = MemberTable.hash(owner, name, desc);
+        for (int slot = hash & methodMask; ; slot = (slot + 1) & methodMask) {
+            int record = buf.getInt(methodTable + slot * 8 + 4);
+            if (record == NONE) return null;
+            int base = methodRecords + record * METHOD_RECORD * 4;
+            if (buf.getInt(methodTable + slot * 8) == hash && name.equals(string(buf.getInt(base + 4))) &&
+                    desc.equals(string(buf.getInt(base + 8))) && owner.equals(string(classField(buf.getInt(base), 0)))) {
+                return string(buf.getInt(base + 12));
+            }
+        }
+    }
+
+    @Override
+    public boolean canVisitMembers() {
+        return true;
+    }
+
+    @Override
+    public void visitMethods(@NotNull String owner, @NotNull MemberVisitor visitor) {
+        int record = findClass(owner);
+        if (record == NONE) return;
+        for (int m = classField(record, 4), end = m + classField(record, 5); m < end; m++) {
+            int base = methodRecords + m * METHOD_RECORD * 4;
+            visitor.visit(string(buf.getInt(base + 4)), string(buf.getInt(base + 8)), string(buf.getInt(base + 12)));
+        }
+    }
+
+    @Override
+    public void visitFields(@NotNull String owner, @NotNull MemberVisitor visitor) {
+        int record = findClass(owner);
+        if (record == NONE) return;
+        for (int f = classField(record, 2), end = f + classField(record, 3); f < end; f++) {
+            int base = fieldRecords + f * FIELD_RECORD * 4;
+            visitor.visit(string(buf.getInt(base + 4)), null, string(buf.getInt(base + 8)));
+        }
+    }
+
+    @Override
+    public DescriptorRemapper getDescriptorRemapper() {
+        DescriptorRemapper dr = descriptorRemapper;
+        if (dr == null) synchronized (this) {
+            dr = descriptorRemapper;
+            if (dr == null) {
+                String[] unmapped = new String[classCount];
+                String[] mapped = new String[classCount];
+                for (int c = 0; c < classCount; c++) {
+                    unmapped[c] = string(classField(c, 0));
+                    mapped[c] = string(classField(c, 1));
+                }
+                descriptorRemapper = dr = new DescriptorRemapper(new ClassNameTable(unmapped, mapped),
+                        new ClassNameTable(mapped, unmapped));
+            }
+        }
+        return dr;
+    }
+}
@@ -75,6 +75,37 @@ public interface MappingRemapper {
         return ret == null ? name : ret;
     }
 
+    /**
+     * Whether this remapper can enumerate the member mappings of a class.
+     *
+     * @implSpec Should return true only if {@link #visitMethods} and {@link #visitFields} are implemented. Callers probe
+     *           the members with {@link #mapMethod} and {@link #mapField} otherwise.
+     * @return true if the member mappings can be visited.
+     */
+    default boolean canVisitMembers() {
+        return false;
+    }
+
+    /**
+     * Visit all the method mappings of a class.
+     *
+     * @implSpec The default implementation visits nothing.
+     * @param owner Unmapped name of the class.
+     * @param visitor Visitor of the methods. The descriptors passed to it are unmapped.
+     */
+    default void visitMethods(@NotNull String owner, @NotNull MemberVisitor visitor) {
+    }
+
+    /**
+     * Visit all the field mappings of a class.
+     *
+     * @implSpec The default implementation visits nothing.
+     * @param owner Unmapped name of the class.
+     * @param visitor Visitor of the fields. The descriptors passed to it are always null.
+     */
+    default void visitFields(@NotNull String owner, @NotNull MemberVisitor visitor) {
+    }
+
     DescriptorRemapper getDescriptorRemapper();
 
     @Subst("I")
@@ -96,4 +127,9 @@ public interface MappingRemapper {
     default @Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String unmapMethodDesc(@Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String mappedDesc) {
         return getDescriptorRemapper().unmapMethodDesc(mappedDesc);
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    interface MemberVisitor {
+        void visit(@NotNull String unmappedName, @Nullable String unmappedDesc, @NotNull String mappedName);
+    }
+}
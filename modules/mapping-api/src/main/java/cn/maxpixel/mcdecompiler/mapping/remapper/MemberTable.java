@@ -0,0 +1,165 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.remapper;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Immutable open-addressing table keyed by (owner, name, descriptor).<br>
+ * The combined hash of every key is stored along with it, so a lookup computes one hash from the cached hashes of the
+ * strings, and compares the strings only when the stored hash matches. Lookups never allocate.
+ *
+ * @param <T> Type of the values
+ */
+public final class MemberTable<T> {
+    private final int mask;
+    private final int[] hashes;
+    private final String[] owners;
+    private final String[] names;
+    private final String[] descs;
+    private final Object[] values;
+    private final int size;
+    private final Object2ObjectOpenHashMap<String, int[]> slotsByOwner;
+
+    private MemberTable(Builder<T> builder, boolean indexOwners) {
+        int n = builder.values.size();
+        int capacity = HashCommon.arraySize(n, 0.5f);
+        this.mask = capacity - 1;
+        this.hashes = new int[capacity];
+        this.owners = new String[capacity];
+        this.names = new String[capacity];
+        this.descs = new String[capacity];
+        this.values = new Object[capacity];
+        this.size = n;
+        Object2ObjectOpenHashMap<String, IntArrayList> slots = indexOwners ? new Object2ObjectOpenHashMap<>() : null;
+        for (int i = 0; i < n; i++) {
+            String owner = builder.owners.get(i), name = builder.names.get(i), desc = builder.descs.get(i);
+            int hash = hash(owner, name, desc);
+            int slot = hash & mask;
+            while (values[slot] != null) {
+                if (hashes[slot] == hash && name.equals(names[slot]) && owner.equals(owners[slot]) && Objects.equals(desc, descs[slot])) {
+                    throw new IllegalArgumentException("Key duplicated for \"" + owner + '.' + name + (desc == null ? "" : desc) + '"');
+                }
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            owners[slot] = owner;
+            names[slot] = name;
+            descs[slot] = desc;
+            values[slot] = builder.values.get(i);
+            if (indexOwners) slots.computeIfAbsent(owner, k -> new IntArrayList()).add(slot);
+        }
+        if (indexOwners) {
+            this.slotsByOwner = new Object2ObjectOpenHashMap<>(slots.size());
+            slots.forEach((owner, list) -> slotsByOwner.put(owner, list.toIntArray()));
+        } else this.slotsByOwner = null;
+    }
+
+    static int hash(String owner, String name, @Nullable String desc) {
+        return HashCommon.mix((owner.hashCode() * 31 + name.hashCode()) * 31 + (desc == null ? 0 : desc.hashCode()));
+    }
+
+    /**
+     * Gets the value of the key
+     * @param owner Owner of the member
+     * @param name Name of the member
+     * @param desc Descriptor of the member, null if the key doesn't have one
+     * @return The value, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T get(@NotNull String owner, @NotNull String name, @Nullable String desc) {
+        int hash = hash(owner, name, desc);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+            if (value == null) return null;
+            if (hashes[slot] == hash && name.equals(names[slot]) && owner.equals(owners[slot]) && Objects.equals(desc, descs[slot])) {
+                return (T) value;
+            }
+        }
+    }
+
+    /**
+     * Gets the value of the first added entry which matches the owner and the name, regardless of the descriptor.
+     * Only works if the owners are indexed when building
+     * @param owner Owner of the member
+     * @param name Name of the member
+     * @return The value, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T getAny(@NotNull String owner, @NotNull String name) {
+        int[] slots = Objects.requireNonNull(slotsByOwner, "Owners are not indexed").get(owner);
+        if (slots != null) for (int slot : slots) {
+            if (name.equals(names[slot])) return (T) values[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Visit all the entries of the owner. Only works if the owners are indexed when building
+     * @param owner The owner
+     * @param visitor Visitor of the entries
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@NotNull String owner, @NotNull EntryVisitor<T> visitor) {
+        int[] slots = Objects.requireNonNull(slotsByOwner, "Owners are not indexed").get(owner);
+        if (slots != null) for (int slot : slots) visitor.visit(names[slot], descs[slot], (T) values[slot]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @FunctionalInterface
+    public interface EntryVisitor<T> {
+        void visit(@NotNull String name, @Nullable String desc, @NotNull T value);
+    }
+
+    public static final class Builder<T> {
+        private final ObjectArrayList<String> owners = new ObjectArrayList<>();
+        private final ObjectArrayList<String> names = new ObjectArrayList<>();
+        private final ObjectArrayList<String> descs = new ObjectArrayList<>();
+        private final ObjectArrayList<T> values = new ObjectArrayList<>();
+
+        /**
+         * Adds an entry. Duplicated keys are reported when building
+         */
+        public Builder<T> put(@NotNull String owner, @NotNull String name, @Nullable String desc, @NotNull T value) {
+            owners.add(Objects.requireNonNull(owner));
+            names.add(Objects.requireNonNull(name));
+            descs.add(desc);
+            values.add(Objects.requireNonNull(value));
+            return this;
+        }
+
+        /**
+         * @param indexOwners Whether to index the entries by owners for {@link MemberTable#forEach} and {@link MemberTable#getAny}
+         * @throws IllegalArgumentException If any key is duplicated
+         */
+        public MemberTable<T> build(boolean indexOwners) {
+            return new MemberTable<>(this, indexOwners);
+        }
+    }
+}
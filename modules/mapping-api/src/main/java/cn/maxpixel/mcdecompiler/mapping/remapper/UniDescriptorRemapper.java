@@ -26,84 +26,149 @@ import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import org.intellij.lang.annotations.Pattern;
 import org.intellij.lang.annotations.Subst;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Lightweight remapper for descriptors of one direction in place of the general heavyweight {@link MappingRemapper}s.
+ * Lightweight remapper for descriptors of one direction in place of the general heavyweight {@link MappingRemapper}s.<br>
+ * Class names in descriptors are probed in place without creating substrings, and the descriptor itself is returned
+ * when no class in it is remapped. Results are cached in a bounded cache.<br>
+ * Subclasses overriding {@link #unmapClass} have every class name in unmapped descriptors looked up through it, and
+ * those results are not cached.
  */
 public class UniDescriptorRemapper {
-    private final Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByUnm;
+    private static final int CACHE_SIZE = 16384;
+    // Cached for unchanged descriptors, so the given instance is returned instead of the cached key
+    private static final String UNCHANGED = new String();
+
+    private final ClassNameTable mapTable;
+    private final ClassNameTable unmapTable;
+    private final ConcurrentHashMap<String, String> mapCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> unmapCache = new ConcurrentHashMap<>();
+    private final boolean customUnmap = overridesUnmapClass(getClass());
 
     public UniDescriptorRemapper(Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByUnm) {
-        this.mappingByUnm = mappingByUnm;
+        this(mappingByUnm, mappingByUnm);
+    }
+
+    /**
+     * Constructor
+     * @param mappingByUnm Class mappings keyed by the names to map from
+     * @param mappingByMap Class mappings keyed by the names to unmap from
+     */
+    protected UniDescriptorRemapper(Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByUnm,
+                                    Object2ObjectOpenHashMap<String, ? extends ClassMapping<? extends Mapping>> mappingByMap) {
+        this(new ClassNameTable(mappingByUnm, cm -> cm.mapping.getMappedName()),
+                new ClassNameTable(mappingByMap, cm -> cm.mapping.getUnmappedName()));
     }
 
-    private String mapClass(@NotNull String name) {
-        ClassMapping<? extends Mapping> classMapping = mappingByUnm.get(name);
-        if (classMapping != null) return classMapping.mapping.getMappedName();
-        return name;
+    UniDescriptorRemapper(ClassNameTable mapTable, ClassNameTable unmapTable) {
+        this.mapTable = mapTable;
+        this.unmapTable = unmapTable;
+    }
+
+    private static boolean overridesUnmapClass(Class<?> c) {
+        for (; c != UniDescriptorRemapper.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("unmapClass", String.class);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+            }
+        }
+        return false;
     }
 
     protected String unmapClass(@NotNull String name) {
-        ClassMapping<? extends Mapping> classMapping = mappingByUnm.get(name);
-        if (classMapping != null) return classMapping.mapping.getUnmappedName();
-        return name;
+        String unmapped = unmapTable.get(name, 0, name.length());
+        return unmapped != null ? unmapped : name;
     }
 
     @Subst("I")
     public @Pattern(MethodOrFieldDesc.FIELD_DESC_PATTERN) String mapDesc(@Pattern(MethodOrFieldDesc.FIELD_DESC_PATTERN) String unmappedDesc) {
-        return mapDesc(unmappedDesc, true);
+        return mapDesc(unmappedDesc, mapTable, mapCache);
     }
 
     @Subst("()V")
     public @Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String mapMethodDesc(@Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String unmappedDesc) {
-        return mapMethodDesc(unmappedDesc, true);
+        return mapMethodDesc(unmappedDesc, mapTable, mapCache);
     }
 
     @Subst("I")
     public @Pattern(MethodOrFieldDesc.FIELD_DESC_PATTERN) String unmapDesc(@Pattern(MethodOrFieldDesc.FIELD_DESC_PATTERN) String mappedDesc) {
-        return mapDesc(mappedDesc, false);
+        return customUnmap ? mapDesc(mappedDesc, null, null) : mapDesc(mappedDesc, unmapTable, unmapCache);
     }
 
     @Subst("()V")
     public @Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String unmapMethodDesc(@Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String mappedDesc) {
-        return mapMethodDesc(mappedDesc, false);
+        return customUnmap ? mapMethodDesc(mappedDesc, null, null) : mapMethodDesc(mappedDesc, unmapTable, unmapCache);
     }
 
+    /**
+     * @param table The class names to look up, or null to look them up through {@link #unmapClass}
+     * @param cache The cache, or null to not cache the result
+     */
     @Subst("I")
-    private String mapDesc(@Pattern(MethodOrFieldDesc.FIELD_DESC_PATTERN) String desc, boolean map) {
+    private String mapDesc(@Pattern(MethodOrFieldDesc.FIELD_DESC_PATTERN) String desc, ClassNameTable table,
+                           ConcurrentHashMap<String, String> cache) {
         int i = 0;
         if (desc.charAt(0) == '[') while (desc.charAt(++i) == '[');
         return switch (desc.charAt(i)) {
             case 'Z', 'B', 'C', 'D', 'F', 'I', 'J', 'S' -> desc;
             case 'L' -> {
-                StringBuilder ret = new StringBuilder(desc.length()).append(desc, 0, ++i);
-                int j = desc.indexOf(';', i + 1);// skip 'L' and the first char
+                String cached = cache == null ? null : cache.get(desc);
+                if (cached != null) yield cached == UNCHANGED ? desc : cached;
+                int j = desc.indexOf(';', i + 2);// skip 'L' and the first char
                 if (j < 0) Utils.throwInvalidDescriptor(false);
-                yield ret.append(map ? mapClass(desc.substring(i, j)) : unmapClass(desc.substring(i, j)))
-                        .append(desc, j, desc.length()).toString();
+                String mapped = lookup(table, desc, i + 1, j);
+                yield cache(cache, desc, isUnchanged(desc, i + 1, j, mapped) ? desc :
+                        new StringBuilder(desc.length() + 16).append(desc, 0, i + 1).append(mapped).append(desc, j, desc.length()).toString());
             }
             default -> Utils.throwInvalidDescriptor(false);
         };
     }
 
     @Subst("()V")
-    private String mapMethodDesc(@Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String desc, boolean map) {
+    private String mapMethodDesc(@Pattern(MethodOrFieldDesc.METHOD_DESC_PATTERN) String desc, ClassNameTable table,
+                                 ConcurrentHashMap<String, String> cache) {
         if (desc.length() == 3 || desc.indexOf('L') < 0) return desc;// no need to map
-        StringBuilder ret = new StringBuilder(desc.length());
-        int start = 0;
+        String cached = cache == null ? null : cache.get(desc);
+        if (cached != null) return cached == UNCHANGED ? desc : cached;
+        StringBuilder ret = null;// only created when something is remapped
+        int copied = 0;
         for (int i = 1; i < desc.length(); i++) {
             switch (desc.charAt(i)) {
                 case 'Z', 'B', 'C', 'D', 'F', 'I', 'J', 'S', 'V', '[', ')' -> {} // no op
                 case 'L' -> {
-                    ret.append(desc, start, ++i);
-                    start = desc.indexOf(';', i + 1);// skip 'L'(++i) and the first char
-                    if (start < 0) Utils.throwInvalidDescriptor(true);
-                    ret.append(map ? mapClass(desc.substring(i, start)) : unmapClass(desc.substring(i, start)));
-                    i = start;// will do i++, so don't assign `start + 1` here
+                    int start = i + 1;
+                    int end = desc.indexOf(';', start + 1);// skip 'L' and the first char
+                    if (end < 0) Utils.throwInvalidDescriptor(true);
+                    String mapped = lookup(table, desc, start, end);
+                    if (!isUnchanged(desc, start, end, mapped)) {
+                        if (ret == null) ret = new StringBuilder(desc.length() + 16);
+                        ret.append(desc, copied, start).append(mapped);
+                        copied = end;
+                    }
+                    i = end;
                 }
                 default -> Utils.throwInvalidDescriptor(true);
             }
         }
-        return ret.append(desc, start, desc.length()).toString();
+        return cache(cache, desc, ret == null ? desc : ret.append(desc, copied, desc.length()).toString());
+    }
+
+    private @Nullable String lookup(@Nullable ClassNameTable table, String desc, int start, int end) {
+        return table != null ? table.get(desc, start, end) : unmapClass(desc.substring(start, end));
+    }
+
+    private static boolean isUnchanged(String desc, int start, int end, String mapped) {
+        return mapped == null || (mapped.length() == end - start && desc.regionMatches(start, mapped, 0, mapped.length()));
+    }
+
+    private static String cache(ConcurrentHashMap<String, String> cache, String desc, String mapped) {
+        if (cache == null) return mapped;
+        if (cache.size() >= CACHE_SIZE) cache.clear();// bounded, and cheap to rebuild
+        cache.put(desc, mapped == desc ? UNCHANGED : mapped);
+        return mapped;
     }
 }
\ No newline at end of file
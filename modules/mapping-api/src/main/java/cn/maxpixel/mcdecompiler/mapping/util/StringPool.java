@@ -0,0 +1,89 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool which deduplicates the strings repeated in the mappings, such as descriptors, namespaces and class names.<br>
+ * Processors create a pool for each parse unless one is given, so the strings are not kept after the parse like
+ * {@link String#intern()} does. Thread-safe.
+ */
+public final class StringPool {
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * Gets the pooled instance equal to the string, adding the string to the pool if absent
+     * @param s The string
+     * @return The pooled instance, or null if the string is null
+     */
+    @Contract("null -> null; !null -> !null")
+    public String intern(@Nullable String s) {
+        if (s == null) return null;
+        String pooled = strings.get(s);
+        if (pooled == null && (pooled = strings.putIfAbsent(s, s)) == null) return s;
+        if (pooled != s) savedBytes.add(sizeOf(s));
+        return pooled;
+    }
+
+    /**
+     * Interns the strings of the array in place
+     * @param strings The strings
+     * @param start Index of the first string to intern
+     * @param end Index after the last string to intern
+     * @return The array
+     */
+    public String @NotNull [] intern(String @NotNull [] strings, int start, int end) {
+        for (int i = start; i < end; i++) strings[i] = intern(strings[i]);
+        return strings;
+    }
+
+    /**
+     * @return Number of distinct strings in the pool
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Gets the estimated size of the duplicated strings which are replaced with the pooled instances. These strings
+     * are not retained by the mappings and can be garbage collected.
+     * @return The saved bytes
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    private static long sizeOf(String s) {// String object and its byte array with compact strings and compressed oops
+        int length = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                length <<= 1;
+                break;
+            }
+        }
+        return 24 + ((16 + length + 7) & ~7);
+    }
+}
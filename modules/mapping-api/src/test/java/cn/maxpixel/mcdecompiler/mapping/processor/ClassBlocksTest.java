@@ -0,0 +1,93 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.processor;
+
+import cn.maxpixel.mcdecompiler.mapping.Mapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.format.MappingFormat;
+import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that processing the class blocks in parallel chunks gives the same classes in the same order as processing
+ * them in sequence
+ */
+class ClassBlocksTest {
+    private static final int TINY_CLASSES = 3000;
+    private static final int LARGE_CLASS = 1000;
+    private static final int LARGE_CLASS_FIELDS = 9000;// Larger than a chunk
+
+    private static String generateTinyV2() {
+        StringBuilder sb = new StringBuilder("tiny\t2\t0\tofficial\tintermediary\tnamed\n\tsorted\n");
+        for (int c = 0; c < TINY_CLASSES; c++) {
+            sb.append("c\tc").append(c).append("\tnet/minecraft/class_").append(c).append("\tnet/minecraft/Class").append(c).append('\n');
+            if (c % 4 == 0) sb.append("\tc\tDoc of class ").append(c).append("\\n\n");
+            int fields = c == LARGE_CLASS ? LARGE_CLASS_FIELDS : 2;
+            for (int f = 0; f < fields; f++) {
+                sb.append("\tf\tI\tf").append(f).append("\tfield_").append(c).append('_').append(f).append("\tfield").append(f).append('\n');
+            }
+            for (int m = 0; m < 2; m++) {
+                sb.append("\tm\t(ILc").append(c).append(";)V\tm").append(m).append("\tmethod_").append(c).append('_').append(m)
+                        .append("\tmethod").append(m).append('\n');
+                sb.append("\t\tc\tDoc of method ").append(m).append('\n');
+                sb.append("\t\tp\t1\t\t\tparam").append(m).append('\n');
+                if (m == 0) sb.append("\t\t\tc\tDoc of param\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static <M extends Mapping> List<ClassMapping<M>> read(MappingFormat<M, ClassifiedMapping<M>> format,
+                                                                  Processor<M> processor, String content, boolean parallel) {
+        LineCursor cursor = LineCursor.of(new BufferedReader(new StringReader(content)), format.getCommentChar());
+        return processor.process(cursor, new StringPool(), ParseProfile.ALL, parallel).classes;
+    }
+
+    @FunctionalInterface
+    private interface Processor<M extends Mapping> {
+        ClassifiedMapping<M> process(LineCursor content, StringPool pool, ParseProfile profile, boolean parallel);
+    }
+
+    @Test
+    void testTinyV2() {
+        String content = generateTinyV2();
+        assertTrue(content.lines().count() > 8192 * 3);
+        var expected = read(MappingFormats.TINY_V2, TinyV2MappingProcessor.INSTANCE::process, content, false);
+        assertEquals(TINY_CLASSES, expected.size());
+        assertEquals(LARGE_CLASS_FIELDS, expected.get(LARGE_CLASS).getFields().size());
+        assertEquals(expected, read(MappingFormats.TINY_V2, TinyV2MappingProcessor.INSTANCE::process, content, true));
+    }
+
+    @Test
+    void testProguard() {
+        String content = ProguardBufferParserTest.generate();
+        assertTrue(content.lines().count() > 8192 * 3);
+        var expected = read(MappingFormats.PROGUARD, ProguardMappingProcessor.INSTANCE::process, content, false);
+        assertEquals(ProguardBufferParserTest.CLASSES, expected.size());
+        assertEquals(expected, read(MappingFormats.PROGUARD, ProguardMappingProcessor.INSTANCE::process, content, true));
+    }
+}
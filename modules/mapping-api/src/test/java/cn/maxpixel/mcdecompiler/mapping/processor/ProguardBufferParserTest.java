@@ -0,0 +1,118 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.mapping.processor;
+
+import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.component.LineNumber;
+import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that parsing the bytes of a Proguard mapping file gives the same mappings as processing its lines
+ */
+class ProguardBufferParserTest {
+    private static final String[] TYPES = { "int", "long[]", "boolean", "java.lang.String", "java.lang.Object[][]",
+            "net.minecraft.world.Item", "net.minecraft.world.Item$Properties[]" };
+    static final int CLASSES = 12000;
+
+    /**
+     * Generates a Proguard mapping file of about 3 MiB with CRLF line endings, comments and blank lines
+     */
+    static String generate() {
+        Random random = new Random(0);
+        StringBuilder sb = new StringBuilder(4 << 20).append("# compiler: R8\r\n# pg_map_id: 0\r\n\r\n");
+        for (int c = 0; c < CLASSES; c++) {
+            sb.append("net.minecraft.pkg").append(c % 7).append(".Class").append(c);
+            if (c % 5 == 0) sb.append("$Inner");
+            sb.append(" -> c").append(c).append(":\r\n");
+            if (c % 3 == 0) sb.append("# {\"fileName\":\"Class").append(c).append(".java\",\"id\":\"sourceFile\"}\r\n");
+            for (int f = 0; f < 2; f++) {
+                sb.append("    ").append(TYPES[random.nextInt(TYPES.length)]).append(" field").append(f).append(" -> f").append(f).append("\r\n");
+            }
+            if (c % 11 == 0) sb.append("\r\n");
+            for (int m = 0; m < 3; m++) {
+                sb.append("    ");
+                if (m != 2) {
+                    int line = random.nextInt(5000);
+                    sb.append(line).append(':').append(line + random.nextInt(20)).append(':');
+                }
+                sb.append(m == 0 ? "void" : TYPES[random.nextInt(TYPES.length)]).append(" method").append(m).append('(');
+                for (int p = random.nextInt(4); p > 0; p--) {
+                    sb.append(TYPES[random.nextInt(TYPES.length)]);
+                    if (p > 1) sb.append(',');
+                }
+                sb.append(") -> m").append(m).append("\r\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static ClassifiedMapping<PairedMapping> readLines(Path file, ParseProfile profile, boolean parallel) throws IOException {
+        try (var reader = Files.newBufferedReader(file)) {
+            return ProguardMappingProcessor.INSTANCE.process(LineCursor.of(reader, MappingFormats.PROGUARD.getCommentChar()),
+                    new StringPool(), profile, parallel);
+        }
+    }
+
+    private static ClassifiedMapping<PairedMapping> readBytes(Path file, ParseProfile profile, boolean parallel) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return ProguardMappingProcessor.INSTANCE.process(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    new StringPool(), profile, parallel);
+        }
+    }
+
+    @Test
+    void testParity(@TempDir Path tmp) throws IOException {
+        String content = generate();
+        assertTrue(content.length() > 2 << 20);// Large enough to be split into chunks
+        Path file = tmp.resolve("mappings.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+
+        ClassifiedMapping<PairedMapping> expected = readLines(file, ParseProfile.ALL, false);
+        assertEquals(CLASSES, expected.classes.size());
+        ClassMapping<PairedMapping> first = expected.classes.get(0);
+        assertEquals("c0", first.mapping.unmappedName);
+        assertEquals("net/minecraft/pkg0/Class0$Inner", first.mapping.mappedName);
+        assertEquals(2, first.getFields().size());
+        assertEquals(3, first.getMethods().size());
+        assertTrue(first.getMethods().get(0).hasComponent(LineNumber.class));
+        assertFalse(first.getMethods().get(2).hasComponent(LineNumber.class));
+
+        for (boolean parallel : new boolean[] {false, true}) {// Classes are compared as lists, so the order is checked
+            assertEquals(expected.classes, readBytes(file, ParseProfile.ALL, parallel).classes, "parallel: " + parallel);
+            assertEquals(expected.classes, readLines(file, ParseProfile.ALL, parallel).classes, "parallel: " + parallel);
+            assertEquals(readLines(file, ParseProfile.REMAP, parallel).classes, readBytes(file, ParseProfile.REMAP, parallel).classes,
+                    "parallel: " + parallel);
+        }
+        assertEquals(expected.classes, MappingFormats.PROGUARD.read(file).classes);// The default parallelism
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.test.mappings;
+
+import cn.maxpixel.mcdecompiler.mapping.processor.LineCursor;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineCursorTest {
+    private static LineCursor reader(String content, char commentChar) {
+        return LineCursor.of(new BufferedReader(new StringReader(content)), commentChar);
+    }
+
+    @Test
+    void testPeekAndNext() {
+        for (LineCursor cursor : List.of(reader("a\nb\nc", '\0'), LineCursor.of(List.of("a", "b", "c")))) {
+            assertEquals("a", cursor.peek());
+            assertEquals("a", cursor.peek());
+            assertEquals("a", cursor.next());
+            assertEquals("b", cursor.next());
+            assertEquals("c", cursor.peek());
+            assertEquals("c", cursor.next());
+            assertNull(cursor.peek());
+            assertNull(cursor.next());
+            assertNull(cursor.next());
+            assertTrue(cursor.toList().isEmpty());
+        }
+    }
+
+    @Test
+    void testStream() {
+        for (LineCursor cursor : List.of(reader("a\nb\nc\nd", '\0'), LineCursor.of(List.of("a", "b", "c", "d")))) {
+            assertEquals("a", cursor.next());
+            assertEquals("b", cursor.peek());
+            assertEquals(List.of("b", "c", "d"), cursor.stream().toList());// The peeked line is included
+            assertNull(cursor.peek());
+            assertTrue(cursor.stream().toList().isEmpty());
+        }
+        LineCursor cursor = LineCursor.of(List.of("a", "b", "c"));
+        assertEquals("a", cursor.next());
+        assertEquals(List.of("b", "c"), cursor.toList());
+        assertNull(cursor.next());
+    }
+
+    @Test
+    void testFiltering() {
+        LineCursor cursor = reader("# header\n\na b # trailing\n   \n\tc\r\n#\nd#\n", '#');
+        assertEquals(List.of("a b ", "\tc", "d"), cursor.toList());
+
+        // Comments are kept when they are not supported
+        assertEquals(List.of("# a", "b # c"), reader("# a\n\nb # c\n", '\0').toList());
+
+        // Lines of a list are used as-is
+        assertEquals(List.of("", "# a"), LineCursor.of(List.of("", "# a")).toList());
+    }
+}
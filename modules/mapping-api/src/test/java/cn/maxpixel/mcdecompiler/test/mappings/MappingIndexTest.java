@@ -0,0 +1,101 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.test.mappings;
+
+import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
+import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
+import cn.maxpixel.mcdecompiler.mapping.remapper.ClassifiedMappingRemapper;
+import cn.maxpixel.mcdecompiler.mapping.remapper.MappingIndex;
+import cn.maxpixel.mcdecompiler.mapping.remapper.MappingRemapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingIndexTest {
+    @Test
+    void testParity(@TempDir Path tmp) throws IOException {
+        var is = MappingIndexTest.class.getClassLoader().getResourceAsStream("1.17.1.tsrg");
+        assertNotNull(is);
+        ClassifiedMapping<PairedMapping> mappings = MappingFormats.TSRG_V1.read(is);
+        ClassifiedMappingRemapper expected = new ClassifiedMappingRemapper(mappings);
+        Path path = tmp.resolve("index");
+        MappingIndex.write(mappings, path);
+        MappingIndex actual = MappingIndex.open(path);
+
+        assertEquals(expected.isMethodStaticIdentifiable(), actual.isMethodStaticIdentifiable());
+        int methods = 0, fields = 0;
+        for (ClassMapping<PairedMapping> cm : mappings.classes) {
+            String owner = cm.mapping.unmappedName, mapped = cm.mapping.mappedName;
+            assertTrue(actual.hasClassMapping(owner), owner);
+            assertEquals(expected.mapClass(owner), actual.mapClass(owner), owner);
+            assertEquals(expected.unmapClass(mapped), actual.unmapClass(mapped), mapped);
+            for (PairedMapping m : cm.getMethods()) {
+                String desc = m.getComponent(Descriptor.Unmapped.class).getDescriptor();
+                assertEquals(expected.mapMethod(owner, m.unmappedName, desc), actual.mapMethod(owner, m.unmappedName, desc));
+                assertEquals(expected.mapMethod(owner, m.unmappedName, null), actual.mapMethod(owner, m.unmappedName, null));
+                String mappedDesc = expected.mapMethodDesc(desc);
+                assertEquals(mappedDesc, actual.mapMethodDesc(desc), desc);
+                assertEquals(expected.unmapMethodDesc(mappedDesc), actual.unmapMethodDesc(mappedDesc), mappedDesc);
+                methods++;
+            }
+            for (PairedMapping f : cm.getFields()) {
+                assertEquals(expected.mapField(owner, f.unmappedName), actual.mapField(owner, f.unmappedName));
+                fields++;
+            }
+            assertEquals(visitMethods(expected, owner), visitMethods(actual, owner), owner);
+            assertEquals(visitFields(expected, owner), visitFields(actual, owner), owner);
+            assertEquals(expected.mapDesc('L' + owner + ';'), actual.mapDesc('L' + owner + ';'));
+            assertEquals(expected.unmapDesc("[L" + mapped + ';'), actual.unmapDesc("[L" + mapped + ';'));
+        }
+        assertTrue(methods > 0);
+        assertTrue(fields > 0);
+
+        // Misses
+        String owner = mappings.classes.get(0).mapping.unmappedName;
+        assertFalse(actual.hasClassMapping("not/Mapped"));
+        assertNull(actual.mapClass("not/Mapped"));
+        assertNull(actual.unmapClass("not/Mapped"));
+        assertNull(actual.mapField(owner, "notMapped"));
+        assertNull(actual.mapMethod(owner, "notMapped", "()V"));
+        assertEquals("(Lnot/Mapped;)V", actual.mapMethodDesc("(Lnot/Mapped;)V"));
+    }
+
+    private static List<String> visitMethods(MappingRemapper remapper, String owner) {
+        List<String> ret = new ArrayList<>();
+        remapper.visitMethods(owner, (name, desc, mapped) -> ret.add(name + desc + ' ' + mapped));
+        ret.sort(null);
+        return ret;
+    }
+
+    private static List<String> visitFields(MappingRemapper remapper, String owner) {
+        List<String> ret = new ArrayList<>();
+        remapper.visitFields(owner, (name, desc, mapped) -> ret.add(name + ' ' + desc + ' ' + mapped));
+        ret.sort(null);
+        return ret;
+    }
+}
@@ -22,6 +22,7 @@ import cn.maxpixel.mcdecompiler.mapping.NamespacedMapping;
 import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
 import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
 import cn.maxpixel.mcdecompiler.mapping.component.Owned;
+import it.unimi.dsi.fastutil.objects.ObjectSet;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -183,5 +184,21 @@ class MappingTest {
         assertEquals("a", m6.getName("a"));
         assertEquals("b", m6.getName("b"));
         assertEquals(1, m6.getComponents().size());
+
+        // A null name means there is no name under the namespace
+        NamespacedMapping m7 = new NamespacedMapping(new String[] { "a", "b" }, new String[] { "a", null });
+        assertTrue(m7.contains("a"));
+        assertFalse(m7.contains("b"));
+        assertNull(m7.getName("b"));
+        assertEquals(ObjectSet.of("a"), m7.getNamespaces());
+        m7.setMappedNamespace("c");
+        assertFalse(m7.contains("c"));
+        assertEquals(ObjectSet.of("a"), m7.getNamespaces());
+        m7.setName("b", "b");
+        assertEquals(ObjectSet.of("a", "b"), m7.getNamespaces());
+        m7.setName("a", null);
+        assertFalse(m7.contains("a"));
+        assertEquals(ObjectSet.of("b"), m7.getNamespaces());
+        assertEquals(new NamespacedMapping("b", "b"), m7);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.test.mappings;
+
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+    @Test
+    void testIntern() {
+        StringPool pool = new StringPool();
+        assertNull(pool.intern(null));
+        String a = new String("Lnet/minecraft/A;");
+        assertSame(a, pool.intern(a));
+        assertSame(a, pool.intern(a));// Interning the pooled instance again saves nothing
+        assertEquals(0, pool.getSavedBytes());
+
+        String copy = new String(a);
+        assertNotSame(a, copy);
+        assertSame(a, pool.intern(copy));
+        assertEquals(1, pool.size());
+        long saved = pool.getSavedBytes();
+        assertTrue(saved >= 24 + 16 + a.length(), String.valueOf(saved));// At least the String object and its bytes
+        assertSame(a, pool.intern(new String(a)));
+        assertEquals(saved * 2, pool.getSavedBytes());
+
+        String b = new String("b");
+        assertSame(b, pool.intern(b));
+        assertEquals(2, pool.size());
+        assertEquals(saved * 2, pool.getSavedBytes());
+    }
+
+    @Test
+    void testSavedBytes() {
+        StringPool pool = new StringPool();
+        pool.intern("a".repeat(8));
+        pool.intern(new String("a".repeat(8)));
+        assertEquals(24 + 24, pool.getSavedBytes());// Latin-1: 16 bytes array header + 8 bytes
+        pool.intern("中".repeat(8));
+        pool.intern(new String("中".repeat(8)));
+        assertEquals(24 + 24 + 24 + 32, pool.getSavedBytes());// UTF-16: 2 bytes per char
+    }
+
+    @Test
+    void testInternArray() {
+        StringPool pool = new StringPool();
+        String a = pool.intern(new String("a"));
+        String[] strings = { new String("a"), new String("a"), null, new String("a") };
+        String last = strings[3];
+        assertSame(strings, pool.intern(strings, 1, 3));
+        assertNotSame(a, strings[0]);// Out of the range
+        assertSame(a, strings[1]);
+        assertNull(strings[2]);
+        assertSame(last, strings[3]);
+    }
+}
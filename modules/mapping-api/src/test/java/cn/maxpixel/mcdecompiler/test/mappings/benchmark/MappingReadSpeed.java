@@ -18,6 +18,7 @@
 
 package cn.maxpixel.mcdecompiler.test.mappings.benchmark;
 
+import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
 import cn.maxpixel.mcdecompiler.mapping.processor.*;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.openjdk.jmh.annotations.*;
@@ -27,7 +28,12 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -46,6 +52,8 @@ public class MappingReadSpeed {
     private static final ObjectArrayList<String> proguard = read("1.17.1.txt");
     private static final ObjectArrayList<String> tiny1 = read("1.17.1.tiny");
     private static final ObjectArrayList<String> tiny2 = read("1.17.1-v2.tiny");
+    private static final byte[] proguardBytes = readBytes("1.17.1.txt");
+    private static final ByteBuffer proguardBuffer = ByteBuffer.allocateDirect(proguardBytes.length).put(proguardBytes).flip();// Off-heap like a memory-mapped file
 
     private static ObjectArrayList<String> read(String n) {
         return new BufferedReader(new InputStreamReader(MappingReadSpeed.class.getClassLoader().getResourceAsStream(n))).lines().map(s -> {
@@ -59,6 +67,14 @@ public class MappingReadSpeed {
         }).filter(Objects::nonNull).collect(ObjectArrayList.toList());
     }
 
+    private static byte[] readBytes(String n) {
+        try (InputStream is = MappingReadSpeed.class.getClassLoader().getResourceAsStream(n)) {
+            return Objects.requireNonNull(is).readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public void test() throws RunnerException {
         Options options = new OptionsBuilder()
                 .include(MappingReadSpeed.class.getSimpleName())
@@ -91,6 +107,16 @@ public class MappingReadSpeed {
         bh.consume(ProguardMappingProcessor.INSTANCE.process(proguard));
     }
 
+    @Benchmark
+    public void readProguardFromReader(Blackhole bh) {
+        bh.consume(MappingFormats.PROGUARD.read(new ByteArrayInputStream(proguardBytes)));
+    }
+
+    @Benchmark
+    public void readProguardFromBuffer(Blackhole bh) {
+        bh.consume(ProguardMappingProcessor.INSTANCE.process(proguardBuffer));
+    }
+
     @Benchmark
     public void readTinyV1(Blackhole bh) {
         bh.consume(TinyV1MappingProcessor.INSTANCE.process(tiny1));
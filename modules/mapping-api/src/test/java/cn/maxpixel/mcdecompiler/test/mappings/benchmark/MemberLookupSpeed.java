@@ -0,0 +1,101 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.test.mappings.benchmark;
+
+import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
+import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
+import cn.maxpixel.mcdecompiler.mapping.remapper.MemberTable;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link MemberTable} with the nested maps which ClassifiedMappingRemapper used before.<br>
+ * Every method of the 1.17.1 TSRG mapping is looked up once per invocation. Keys are copied so the strings are not
+ * identical to the ones stored, as it is when the keys come from class files.
+ */
+@Fork(1)
+@Threads(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@State(Scope.Benchmark)
+public class MemberLookupSpeed {
+    private final ObjectArrayList<String[]> keys = new ObjectArrayList<>();
+    private final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, PairedMapping>>> nested =
+            new Object2ObjectOpenHashMap<>();
+    private MemberTable<PairedMapping> flat;
+
+    public void benchmark() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MemberLookupSpeed.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    /*
+     * Benchmark                       Mode  Cnt  Score   Error  Units
+     * MemberLookupSpeed.lookupFlat    avgt   10  7.831 ± 1.692  ms/op
+     * MemberLookupSpeed.lookupNested  avgt   10  9.761 ± 1.666  ms/op
+     */
+
+    @Setup
+    public void setup() {
+        ClassifiedMapping<PairedMapping> mappings = MappingFormats.TSRG_V1.read(MemberLookupSpeed.class.getClassLoader()
+                .getResourceAsStream("1.17.1.tsrg"));
+        MemberTable.Builder<PairedMapping> builder = new MemberTable.Builder<>();
+        for (ClassMapping<PairedMapping> cm : mappings.classes) {
+            String owner = cm.mapping.getUnmappedName();
+            for (PairedMapping method : cm.getMethods()) {
+                String desc = method.getComponent(Descriptor.Unmapped.class).descriptor;
+                builder.put(owner, method.getUnmappedName(), desc, method);
+                nested.computeIfAbsent(owner, k -> new Object2ObjectOpenHashMap<>())
+                        .computeIfAbsent(method.getUnmappedName(), k -> new Object2ObjectOpenHashMap<>())
+                        .put(desc, method);
+                keys.add(new String[] {new String(owner), new String(method.getUnmappedName()), new String(desc)});
+            }
+        }
+        flat = builder.build(false);
+    }
+
+    @Benchmark
+    public void lookupFlat(Blackhole bh) {
+        for (String[] key : keys) bh.consume(flat.get(key[0], key[1], key[2]));
+    }
+
+    @Benchmark
+    public void lookupNested(Blackhole bh) {
+        for (String[] key : keys) {
+            var byName = nested.get(key[0]);
+            var byDesc = byName == null ? null : byName.get(key[1]);
+            bh.consume(byDesc == null ? null : byDesc.get(key[2]));
+        }
+    }
+}
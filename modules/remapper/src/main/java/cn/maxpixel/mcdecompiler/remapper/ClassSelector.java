@@ -0,0 +1,134 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of {@link DeobfuscationOptions#extraClasses}, tested against internal class names.<br>
+ * Supported selectors:
+ * <ul>
+ *     <li>{@code *} or {@code *all*}: selects all classes</li>
+ *     <li>{@code regex:<pattern>}: selects classes whose whole name matches the regular expression</li>
+ *     <li>Selectors containing {@code *} or {@code ?}: globs matching the whole name. {@code *} and {@code ?} don't match
+ *     {@code /}, while {@code **} does. Before globs were supported, such selectors were prefixes matched literally, which
+ *     could never match a class name</li>
+ *     <li>Others: selects classes whose name starts with the selector</li>
+ * </ul>
+ */
+public final class ClassSelector implements Predicate<String> {
+    public static final String REGEX_PREFIX = "regex:";
+
+    private final boolean all;
+    private final Node prefixes;
+    private final Pattern pattern;
+
+    private ClassSelector(boolean all, Node prefixes, Pattern pattern) {
+        this.all = all;
+        this.prefixes = prefixes;
+        this.pattern = pattern;
+    }
+
+    public static ClassSelector compile(@NotNull Collection<String> selectors) {
+        if (selectors.contains("*") || selectors.contains("*all*")) return new ClassSelector(true, null, null);
+        Node root = null;
+        ObjectArrayList<String> regexes = new ObjectArrayList<>();
+        for (String selector : selectors) {
+            if (selector.startsWith(REGEX_PREFIX)) regexes.add(selector.substring(REGEX_PREFIX.length()));
+            else if (selector.indexOf('*') >= 0 || selector.indexOf('?') >= 0) regexes.add(globToRegex(selector));
+            else {
+                if (root == null) root = new Node();
+                root.add(selector);
+            }
+        }
+        Pattern pattern = regexes.isEmpty() ? null : Pattern.compile(regexes.size() == 1 ? regexes.get(0) :
+                "(?:" + String.join(")|(?:", regexes) + ')');
+        return new ClassSelector(false, root, pattern);
+    }
+
+    /**
+     * @return true if this selector selects all classes
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * @return true if this selector selects nothing
+     */
+    public boolean isEmpty() {
+        return !all && prefixes == null && pattern == null;
+    }
+
+    /**
+     * Tests if the class is selected
+     * @param className The internal name of the class
+     * @return true if selected
+     */
+    @Override
+    public boolean test(@NotNull String className) {
+        return all || (prefixes != null && prefixes.matches(className)) || (pattern != null && pattern.matcher(className).matches());
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder sb = new StringBuilder(glob.length() + 16);
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?') continue;
+            if (i > start) sb.append(Pattern.quote(glob.substring(start, i)));
+            if (c == '?') sb.append("[^/]");
+            else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                sb.append(".*");
+                i++;
+            } else sb.append("[^/]*");
+            start = i + 1;
+        }
+        if (start < glob.length()) sb.append(Pattern.quote(glob.substring(start)));
+        return sb.toString();
+    }
+
+    private static final class Node {
+        private final Char2ObjectOpenHashMap<Node> children = new Char2ObjectOpenHashMap<>(2);
+        private boolean terminal;
+
+        void add(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length() && !node.terminal; i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+            }
+            node.terminal = true;
+            node.children.clear();// Longer prefixes are covered by this one
+        }
+
+        boolean matches(String name) {
+            Node node = this;
+            for (int i = 0; !node.terminal; i++) {
+                if (i == name.length() || (node = node.children.get(name.charAt(i))) == null) return false;
+            }
+            return true;
+        }
+    }
+}
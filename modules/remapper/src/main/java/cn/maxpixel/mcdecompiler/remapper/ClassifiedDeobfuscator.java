@@ -20,25 +20,44 @@ package cn.maxpixel.mcdecompiler.remapper;
 
 import cn.maxpixel.mcdecompiler.common.app.SideType;
 import cn.maxpixel.mcdecompiler.common.app.util.DownloadingUtil;
+import cn.maxpixel.mcdecompiler.mapping.NameView;
 import cn.maxpixel.mcdecompiler.mapping.NamespacedMapping;
 import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
 import cn.maxpixel.mcdecompiler.mapping.format.MappingFormats;
+import cn.maxpixel.mcdecompiler.mapping.processor.ParseProfile;
 import cn.maxpixel.mcdecompiler.mapping.remapper.ClassifiedMappingRemapper;
 import cn.maxpixel.mcdecompiler.mapping.trait.NamespacedTrait;
+import cn.maxpixel.mcdecompiler.mapping.util.StringPool;
 import cn.maxpixel.mcdecompiler.mapping.util.Utils;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
 
 public class ClassifiedDeobfuscator extends Deobfuscator<ClassifiedMappingRemapper> {
+    // Namespaced mappings used to create the remappers of other target namespaces, null if the mappings are paired
+    private final ClassifiedMapping<NamespacedMapping> namespacedMappings;
+    // View of the namespaced mappings, null if the mappings are paired
+    private final NameView.Namespaced namespacedView;
+
     public ClassifiedDeobfuscator(String version, SideType side) {
         this(version, side, DeobfuscationOptions.DEFAULT);
     }
 
     public ClassifiedDeobfuscator(String version, SideType side, DeobfuscationOptions options) {
-        this(MappingFormats.PROGUARD.read(DownloadingUtil.downloadMappingSync(version, side)), options);
+        this(readOfficialMappings(version, side), options);
+    }
+
+    private static ClassifiedMapping<PairedMapping> readOfficialMappings(String version, SideType side) {
+        StringPool pool = new StringPool();
+        ClassifiedMapping<PairedMapping> mappings = MappingFormats.PROGUARD.read(DownloadingUtil.downloadMappingFileSync(version, side),
+                pool, ParseProfile.REMAP);// Line numbers are not used when remapping
+        LOGGER.debug("Read the official mappings, {} bytes saved by pooling {} strings", pool.getSavedBytes(), pool.size());
+        return mappings;
     }
 
     public ClassifiedDeobfuscator(ClassifiedMapping<PairedMapping> mappings) {
@@ -47,8 +66,9 @@ public class ClassifiedDeobfuscator extends Deobfuscator<ClassifiedMappingRemapp
 
     public ClassifiedDeobfuscator(ClassifiedMapping<PairedMapping> mappings, DeobfuscationOptions options) {
         super(options);
-        if (options.reverse) mappings.reverse();
-        this.remapper = new ClassifiedMappingRemapper(mappings);
+        this.remapper = new ClassifiedMappingRemapper(mappings, options.reverse ? NameView.CURRENT.reverse() : NameView.CURRENT);
+        this.namespacedMappings = null;
+        this.namespacedView = null;
     }
 
     public ClassifiedDeobfuscator(ClassifiedMapping<NamespacedMapping> mappings, String namespaceTarget) {
@@ -59,13 +79,17 @@ public class ClassifiedDeobfuscator extends Deobfuscator<ClassifiedMappingRemapp
         super(options);
         var namespaced = mappings.getTrait(NamespacedTrait.class);
         int i = namespaceTarget != null ? namespaceTarget.indexOf(':') : -1;// FIXME: Should this logic be placed here?
-        if (i >= 0) namespaced.setUnmappedNamespace(namespaceTarget.substring(0, i));
+        String unmappedNamespace = i >= 0 ? namespaceTarget.substring(0, i) : namespaced.getUnmappedNamespace();
         String targetNamespace = inferTargetNamespace(i >= 0 ? namespaceTarget.substring(i + 1) : namespaceTarget, mappings);
-        if (options.reverse) mappings.swap(targetNamespace);
-        namespaced.setMappedNamespace(targetNamespace);
-        namespaced.setFallbackNamespace(mappings.getFirstNamespace());
-        mappings.updateCollection();
-        this.remapper = new ClassifiedMappingRemapper(mappings);
+        // The mappings are viewed instead of modified, so they can be shared
+        this.namespacedView = NameView.namespaced(unmappedNamespace, targetNamespace, mappings.getFirstNamespace());
+        this.remapper = new ClassifiedMappingRemapper(mappings, view(namespacedView, targetNamespace, mappings, options));
+        this.namespacedMappings = mappings;
+    }
+
+    private static NameView.Namespaced view(NameView.Namespaced view, String targetNamespace,
+                                            ClassifiedMapping<NamespacedMapping> mappings, DeobfuscationOptions options) {
+        return options.reverse ? view.swap(mappings.getFirstNamespace(), targetNamespace) : view;
     }
 
     private static String inferTargetNamespace(String targetNamespace, @NotNull ClassifiedMapping<NamespacedMapping> mappings) {
@@ -80,4 +104,29 @@ public class ClassifiedDeobfuscator extends Deobfuscator<ClassifiedMappingRemapp
         super.deobfuscate(source, target);
         return this;
     }
+
+    /**
+     * Deobfuscate the jar to several target namespaces. The jar and the extra classes are read only once, and the
+     * mappings are parsed only once.<br>
+     * Only supported by namespaced mappings. The mappings are shared by the remappers of all the targets and are not modified
+     * @param source The input jar
+     * @param targets Output jar of each target namespace, in the order of remapping
+     * @return this deobfuscator
+     */
+    public ClassifiedDeobfuscator deobfuscate(Path source, Map<String, Path> targets) throws IOException {
+        if (namespacedMappings == null) throw new UnsupportedOperationException("Only namespaced mappings support multiple targets");
+        if (targets.isEmpty()) throw new IllegalArgumentException("No target to deobfuscate to");
+        var namespaced = namespacedMappings.getTrait(NamespacedTrait.class);
+        ObjectArrayList<Pass<ClassifiedMappingRemapper>> passes = new ObjectArrayList<>(targets.size());
+        targets.forEach((namespace, target) -> {
+            if (!namespaced.namespaces.contains(namespace)) throw new IllegalArgumentException("Namespace \"" + namespace + "\" does not exist");
+            passes.add(new Pass<>(Objects.requireNonNull(target), () -> {
+                if (namespace.equals(namespacedView.mappedNamespace())) return remapper;
+                var view = new NameView.Namespaced(namespacedView.unmappedNamespace(), namespace, namespacedView.fallbackNamespace());
+                return new ClassifiedMappingRemapper(namespacedMappings, view(view, namespace, namespacedMappings, options));
+            }));
+        });
+        deobfuscate(source, passes);
+        return this;
+    }
 }
\ No newline at end of file
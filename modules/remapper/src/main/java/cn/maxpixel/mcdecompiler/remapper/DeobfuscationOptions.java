@@ -20,6 +20,7 @@ package cn.maxpixel.mcdecompiler.remapper;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
 import it.unimi.dsi.fastutil.objects.ObjectSets;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.util.Map;
@@ -32,8 +33,19 @@ public class DeobfuscationOptions {
     public final boolean rvn;
     public final boolean reverse;
     public final Set<Path> extraJars;
+    /**
+     * Selectors of the extra classes to deobfuscate. See {@link ClassSelector} for the syntax
+     */
     public final Set<String> extraClasses;
     public final Map<String, Map<String, String>> refMap;
+    /**
+     * Number of threads used to ingest, scan and remap classes
+     */
+    public final int workers;
+    /**
+     * Directory of the remapped class cache and the hierarchy indexes of extra jars, or null to disable the cache
+     */
+    public final @Nullable Path cacheDir;
 
     public DeobfuscationOptions() {
         this(true, false, false);
@@ -45,11 +57,25 @@ public class DeobfuscationOptions {
 
     public DeobfuscationOptions(boolean includeOthers, boolean rvn, boolean reverse, Set<Path> extraJars,
                                 Set<String> extraClasses, Map<String, Map<String, String>> refMap) {
+        this(includeOthers, rvn, reverse, extraJars, extraClasses, refMap, Runtime.getRuntime().availableProcessors());
+    }
+
+    public DeobfuscationOptions(boolean includeOthers, boolean rvn, boolean reverse, Set<Path> extraJars,
+                                Set<String> extraClasses, Map<String, Map<String, String>> refMap, int workers) {
+        this(includeOthers, rvn, reverse, extraJars, extraClasses, refMap, workers, null);
+    }
+
+    public DeobfuscationOptions(boolean includeOthers, boolean rvn, boolean reverse, Set<Path> extraJars,
+                                Set<String> extraClasses, Map<String, Map<String, String>> refMap, int workers,
+                                @Nullable Path cacheDir) {
+        if (workers < 1) throw new IllegalArgumentException("workers must be positive");
         this.includeOthers = includeOthers;
         this.rvn = rvn;
         this.reverse = reverse;
         this.extraJars = extraJars;
         this.extraClasses = extraClasses;
         this.refMap = refMap;
+        this.workers = workers;
+        this.cacheDir = cacheDir;
     }
 }
\ No newline at end of file
@@ -21,25 +21,41 @@ package cn.maxpixel.mcdecompiler.remapper;
 import cn.maxpixel.mcdecompiler.common.app.util.FileUtil;
 import cn.maxpixel.mcdecompiler.common.app.util.JarUtil;
 import cn.maxpixel.mcdecompiler.common.app.util.MiscUtils;
+import cn.maxpixel.mcdecompiler.mapping.remapper.ClassifiedMappingRemapper;
 import cn.maxpixel.mcdecompiler.mapping.remapper.MappingRemapper;
+import cn.maxpixel.mcdecompiler.remapper.io.JarContent;
+import cn.maxpixel.mcdecompiler.remapper.io.JarSink;
+import cn.maxpixel.mcdecompiler.remapper.io.RawZipReader;
+import cn.maxpixel.mcdecompiler.remapper.io.RemapCache;
 import cn.maxpixel.mcdecompiler.remapper.processing.ClassFileRemapper;
 import cn.maxpixel.mcdecompiler.remapper.processing.ClassProcessor;
 import cn.maxpixel.mcdecompiler.remapper.processing.ExtraClassesInformation;
-import cn.maxpixel.mcdecompiler.remapper.util.IOUtil;
+import cn.maxpixel.mcdecompiler.remapper.processing.HierarchyIndex;
 import cn.maxpixel.rewh.logging.LogManager;
 import cn.maxpixel.rewh.logging.Logger;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Set;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
 
@@ -57,71 +73,221 @@ public abstract class Deobfuscator<T extends MappingRemapper> {
     }
 
     public final ObjectOpenHashSet<String> toDecompile = new ObjectOpenHashSet<>();
+    /**
+     * Remapped classes kept in memory when {@link #retainClasses(boolean)} is enabled.<br>
+     * Key is the entry name of the class, value is the remapped bytes
+     */
+    public final Object2ObjectOpenHashMap<String, byte[]> remappedClasses = new Object2ObjectOpenHashMap<>();
+    private boolean retainClasses;
+
+    /**
+     * Keep the remapped classes in {@link #remappedClasses}, so that they can be used without reading the output jar
+     * @param retainClasses Whether to keep the remapped classes
+     * @return this deobfuscator
+     */
+    public Deobfuscator<T> retainClasses(boolean retainClasses) {
+        this.retainClasses = retainClasses;
+        return this;
+    }
+
+    /**
+     * Deobfuscate the jar
+     * @param source The input jar
+     * @param target The output jar. If null, the jar won't be written and the remapped classes must be retained
+     * @return this deobfuscator
+     */
+    public Deobfuscator<T> deobfuscate(Path source, @Nullable Path target) throws IOException {
+        if (target == null && !retainClasses) throw new IllegalArgumentException("Either write the jar or retain the classes");
+        T r = remapper;
+        deobfuscate(source, List.of(new Pass<>(target, () -> r)));
+        return this;
+    }
+
+    /**
+     * A pass of a deobfuscation, which remaps all the classes with a remapper and writes them to a jar
+     * @param target The output jar. If null, the jar won't be written
+     * @param remapper Supplies the remapper of the pass. Called right before the pass starts
+     */
+    protected record Pass<T extends MappingRemapper>(@Nullable Path target, Supplier<T> remapper) {}
 
-    public Deobfuscator<T> deobfuscate(Path source, Path target) throws IOException {
+    /**
+     * Deobfuscate the jar in several passes. The jar and the extra classes are read only once and shared by all the passes.<br>
+     * {@link #toDecompile} and {@link #remappedClasses} hold the results of the last pass
+     * @param source The input jar
+     * @param passes The passes. Classes of the input jar are selected with the remapper of the first pass
+     */
+    protected final void deobfuscate(Path source, List<Pass<T>> passes) throws IOException {
         LOGGER.info("Deobfuscating...");
-        Files.deleteIfExists(target);
-        try (FileSystem fs = JarUtil.createZipFs(FileUtil.requireExist(source));
-             FileSystem targetFs = JarUtil.createZipFs(FileUtil.makeParentDirs(target), true);
-             Stream<Path> paths = FileUtil.iterateFiles(fs.getPath(""))) {
-            Set<String> extraClasses = options.extraClasses;
-            boolean deobfAll = extraClasses.contains("*") || extraClasses.contains("*all*");
-            boolean extraClassesNotEmpty = !extraClasses.isEmpty();
-            ExtraClassesInformation info = new ExtraClassesInformation(options.refMap, FileUtil.iterateFiles(fs.getPath(""))
-                    .filter(p -> {
-                        String ps = p.toString();
-                        String k = MiscUtils.file2Native(ps);
-                        return (deobfAll && ps.endsWith(".class")) || remapper.hasClassMapping(k) ||
-                                (extraClassesNotEmpty && extraClasses.stream().anyMatch(k::startsWith));
-                    }), true);
-            options.extraJars.forEach(jar -> {
-                try (FileSystem jarFs = JarUtil.createZipFs(jar);
-                    Stream<Path> s = FileUtil.iterateFiles(jarFs.getPath(""))) {
-                    s.filter(p -> p.toString().endsWith(".class")).forEach(info);
-                } catch (IOException e) {
-                    LOGGER.warn("Error reading extra jar: {}", jar, e);
+        for (Pass<T> pass : passes) if (pass.target != null) Files.deleteIfExists(pass.target);
+        ForkJoinPool pool = new ForkJoinPool(options.workers);
+        this.remapper = passes.get(0).remapper.get();
+        try (JarContent content = JarContent.read(FileUtil.requireExist(source), createClassSelector(), pool)) {
+            ExtraClassesInformation info = new ExtraClassesInformation(options.refMap);
+            pool.submit(() -> content.getClasses().values().parallelStream().forEach(info::accept)).join();
+            options.extraJars.forEach(jar -> readExtraJar(jar, info, pool));
+            for (int i = 0; i < passes.size(); i++) {
+                Pass<T> pass = passes.get(i);
+                if (i > 0) {
+                    this.remapper = pass.remapper.get();
+                    LOGGER.info("Deobfuscating to {}...", pass.target);
                 }
-            });
+                remap(content, info, pass.target, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void remap(JarContent content, ExtraClassesInformation info, @Nullable Path target, ForkJoinPool pool) throws IOException {
+        try (JarSink sink = target != null ? new JarSink(target) : null) {
             ClassFileRemapper cfr = new ClassFileRemapper(remapper, info);
+            RemapCache cache = createCache(cfr, content);
             processor.beforeRunning(cfr);
             toDecompile.clear();
-            paths.forEach(path -> {
+            remappedClasses.clear();
+            Semaphore window = sink == null ? new Semaphore(JarSink.WINDOW) : null;// The sink bounds in-flight tasks itself
+            try {
+                for (Output output : collectOutputs(content, sink != null)) dispatch(output, sink, window, pool, cfr, cache);
+            } finally {
+                pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+            }
+            if (cache != null) LOGGER.info("Remap cache: {} hits, {} misses", cache.getHits(), cache.getMisses());
+            LOGGER.info("Member resolution: {} hits, {} misses", cfr.getHits(), cfr.getMisses());
+            processor.afterRunning(cfr);
+        }
+    }
+
+    /**
+     * Read the information of an extra jar. When the cache is enabled, the information is read from and saved to
+     * the hierarchy index of the jar so that the jar is parsed only once
+     */
+    private void readExtraJar(Path jar, ExtraClassesInformation info, ForkJoinPool pool) {
+        Path index = null;
+        if (options.cacheDir != null) {
+            try {
+                index = options.cacheDir.resolve("hierarchy").resolve(HierarchyIndex.computeKey(jar, options.refMap));
+                if (HierarchyIndex.read(index, info)) return;
+            } catch (IOException e) {// Scan the jar anyway, as missing classes would change how inherited members are remapped
+                LOGGER.warn("Error reading the hierarchy index of extra jar {}, scanning the jar instead", jar, e);
+                index = null;
+            }
+        }
+        ExtraClassesInformation jarInfo = index == null ? info : new ExtraClassesInformation(options.refMap);
+        try (FileSystem jarFs = JarUtil.createZipFs(jar);
+             Stream<Path> s = FileUtil.iterateFiles(jarFs.getPath(""))) {
+            pool.submit(() -> s.filter(p -> p.toString().endsWith(".class")).forEach(jarInfo)).join();
+        } catch (IOException e) {
+            LOGGER.warn("Error reading extra jar: {}", jar, e);
+            return;
+        }
+        if (index != null) {
+            HierarchyIndex.write(index, jarInfo);
+            info.merge(jarInfo);
+        }
+    }
+
+    /**
+     * Collect entries of the output jar, sorted by their names so that the output is reproducible
+     */
+    private ObjectArrayList<Output> collectOutputs(JarContent content, boolean includeOthers) {
+        ObjectArrayList<Output> outputs = new ObjectArrayList<>(content.getClasses().size() + content.getOthers().size());
+        for (var it = Object2ObjectMaps.fastIterator(content.getClasses()); it.hasNext(); ) {
+            var entry = it.next();
+            String pathString = entry.getKey();
+            String s = remapper.mapClass(MiscUtils.file2Native(pathString));
+            String mapped = s != null ? s.concat(".class") : pathString;
+            toDecompile.add(mapped);
+            outputs.add(new Output(mapped, pathString, entry.getValue(), null));
+        }
+        if (includeOthers && options.includeOthers) for (RawZipReader.Entry entry : content.getOthers()) {
+            String name = entry.getName();
+            if (name.endsWith(".SF") || name.endsWith(".RSA")) continue;
+            outputs.add(new Output(name, name, null, entry));
+        }
+        outputs.sort(Comparator.comparing(Output::name).thenComparing(Output::source));
+        return outputs;
+    }
+
+    private RemapCache createCache(ClassFileRemapper cfr, JarContent content) throws IOException {
+        if (options.cacheDir == null) return null;
+        if (!processor.isCacheable()) {
+            LOGGER.info("Remap cache is disabled because regenerating variable names or additional processes are enabled");
+            return null;
+        }
+        if (!(remapper instanceof ClassifiedMappingRemapper cmr)) {
+            LOGGER.info("Remap cache is disabled because the remapper does not support it");
+            return null;
+        }
+        return new RemapCache(options.cacheDir, options, cmr, cfr.hierarchy, content.getClasses());
+    }
+
+    private void dispatch(Output output, @Nullable JarSink sink, @Nullable Semaphore window, ForkJoinPool pool,
+                          ClassFileRemapper cfr, RemapCache cache) throws IOException {
+        int index = sink != null ? sink.reserve() : -1;
+        if (window != null) window.acquireUninterruptibly();
+        if (output.classBytes != null) {
+            pool.execute(() -> {
+                byte[] bytes = null;
                 try {
-                    String pathString = path.toString();
-                    String classKeyName = MiscUtils.file2Native(pathString);
-                    if ((deobfAll && pathString.endsWith(".class")) || remapper.hasClassMapping(classKeyName) ||
-                            (extraClassesNotEmpty && extraClasses.stream().anyMatch(classKeyName::startsWith))) {
-                        ClassReader reader = new ClassReader(IOUtil.readAllBytes(path));
+                    String key = cache != null ? cache.computeKey(output.classBytes) : null;
+                    if (key != null) bytes = cache.get(key);
+                    if (bytes == null) {
+                        ClassReader reader = new ClassReader(output.classBytes);
                         ClassWriter writer = new ClassWriter(0);
-                        String s = remapper.mapClass(classKeyName);
                         reader.accept(processor.getVisitor(writer, reader, cfr), 0);
-                        String mapped = s != null ? s.concat(".class") : pathString;
-                        synchronized (toDecompile) {
-                            toDecompile.add(mapped);
-                        }
-                        try (OutputStream os = Files.newOutputStream(FileUtil.makeParentDirs(targetFs.getPath(mapped)))) {
-                            os.write(writer.toByteArray());
-                        }
-                    } else if (options.includeOthers) {
-                        if (pathString.endsWith(".SF") || pathString.endsWith(".RSA")) return;
-                        try (InputStream inputStream = Files.newInputStream(path);
-                             OutputStream os = Files.newOutputStream(FileUtil.makeParentDirs(targetFs.getPath(pathString)))) {
-                            if (path.endsWith("META-INF/MANIFEST.MF")) {
-                                Manifest man = new Manifest(inputStream);
-                                man.getEntries().clear();
-                                man.write(os);
-                            } else inputStream.transferTo(os);
-                        }
+                        bytes = writer.toByteArray();
+                        if (key != null) cache.put(key, bytes);
                     }
                 } catch (Exception e) {
-                    LOGGER.warn("Error when remapping classes or coping files", e);
+                    LOGGER.warn("Error when remapping class {}", output.source, e);
+                } finally {
+                    if (bytes != null && retainClasses) synchronized (remappedClasses) {
+                        remappedClasses.put(output.name, bytes);
+                    }
+                    if (sink != null) {
+                        if (bytes != null) sink.put(index, output.name, bytes);
+                        else sink.skip(index);
+                    } else window.release();
                 }
             });
-            processor.afterRunning(cfr);
+        } else if (output.name.equals(JarFile.MANIFEST_NAME)) {// The only entry that really needs rewriting
+            pool.execute(() -> {
+                byte[] bytes = null;
+                try {
+                    Manifest man = new Manifest(new ByteArrayInputStream(output.raw.readBytes()));
+                    man.getEntries().clear();
+                    ByteArrayOutputStream os = new ByteArrayOutputStream();
+                    man.write(os);
+                    bytes = os.toByteArray();
+                } catch (Exception e) {
+                    LOGGER.warn("Error when rewriting the manifest", e);
+                } finally {
+                    if (bytes != null) sink.put(index, output.name, bytes);
+                    else sink.skip(index);
+                }
+            });
+        } else {
+            try {// Blocking I/O stays on the dispatching thread, workers are left for CPU-bound work
+                sink.putRaw(index, output.raw);
+            } catch (IOException e) {
+                LOGGER.warn("Error when coping file {}", output.name, e);
+            }
         }
-        return this;
     }
 
+    private Predicate<String> createClassSelector() {
+        ClassSelector selector = ClassSelector.compile(options.extraClasses);
+        if (selector.isAll()) return pathString -> pathString.endsWith(".class");
+        boolean selectorNotEmpty = !selector.isEmpty();
+        return pathString -> {
+            if (!pathString.endsWith(".class")) return false;
+            String classKeyName = MiscUtils.file2Native(pathString);
+            return remapper.hasClassMapping(classKeyName) || (selectorNotEmpty && selector.test(classKeyName));
+        };
+    }
+
+    private record Output(String name, String source, byte[] classBytes, RawZipReader.Entry raw) {}
+
     /**
      * Release the remapper so that memory can be cleaned up after the deobfuscation.
      */
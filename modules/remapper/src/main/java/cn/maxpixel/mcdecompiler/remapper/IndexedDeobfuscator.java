@@ -0,0 +1,51 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper;
+
+import cn.maxpixel.mcdecompiler.mapping.remapper.MappingIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Deobfuscator using a prebuilt {@link MappingIndex}, which skips parsing the mappings and building the remapper.<br>
+ * Local variable names in the mappings and the remap cache are not available with an index
+ */
+public class IndexedDeobfuscator extends Deobfuscator<MappingIndex> {
+    public IndexedDeobfuscator(MappingIndex index) {
+        this(index, DeobfuscationOptions.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     * @param index The index. It must be built from the mappings in the desired direction
+     * @param options Options of the deobfuscation. {@link DeobfuscationOptions#reverse} is not supported
+     */
+    public IndexedDeobfuscator(MappingIndex index, DeobfuscationOptions options) {
+        super(options);
+        if (options.reverse) throw new IllegalArgumentException("Mapping indexes cannot be reversed. Build the index from reversed mappings instead");
+        this.remapper = index;
+    }
+
+    @Override
+    public IndexedDeobfuscator deobfuscate(Path source, Path target) throws IOException {
+        super.deobfuscate(source, target);
+        return this;
+    }
+}
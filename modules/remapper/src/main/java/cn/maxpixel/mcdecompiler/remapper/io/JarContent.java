@@ -0,0 +1,100 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.io;
+
+import cn.maxpixel.rewh.logging.LogManager;
+import cn.maxpixel.rewh.logging.Logger;
+import it.unimi.dsi.fastutil.objects.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+/**
+ * Entries of a jar ingested in a single pass.<br>
+ * Bytes of the selected classes are read exactly once, so both the class hierarchy scan and the remapping pass can
+ * reuse them. Other entries, and classes which can't be read, are only recorded, so they can be copied as raw records later.
+ */
+public class JarContent implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final RawZipReader reader;
+    private final Object2ObjectOpenHashMap<String, byte[]> classes = new Object2ObjectOpenHashMap<>();
+    private final ObjectArrayList<RawZipReader.Entry> others = new ObjectArrayList<>();
+
+    private JarContent(RawZipReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Ingest the jar. The jar is kept open until this content is closed.
+     * @param jar The jar to read
+     * @param selector Tests whether the entry with given name is a class that should be remapped
+     * @param pool The pool to read and inflate the classes in
+     * @return The ingested content
+     */
+    public static JarContent read(@NotNull Path jar, @NotNull Predicate<String> selector, @NotNull ForkJoinPool pool) throws IOException {
+        JarContent content = new JarContent(new RawZipReader(jar));
+        try {
+            pool.submit(() -> content.reader.getEntries().parallelStream().forEach(entry -> {
+                String name = entry.getName();
+                if (selector.test(name)) {
+                    try {
+                        byte[] bytes = entry.readBytes();
+                        synchronized (content.classes) {
+                            content.classes.put(name, bytes);
+                        }
+                        return;
+                    } catch (IOException e) {
+                        LOGGER.warn("Error reading class {}, copying it as is", name, e);
+                    }
+                }
+                synchronized (content.others) {
+                    content.others.add(entry);
+                }
+            })).join();
+        } catch (RuntimeException e) {
+            content.close();
+            throw e;
+        }
+        return content;
+    }
+
+    /**
+     * @return Selected classes. Key is the name of the entry, value is the bytes of the class
+     */
+    public Object2ObjectMap<String, byte[]> getClasses() {
+        return Object2ObjectMaps.unmodifiable(classes);
+    }
+
+    /**
+     * @return Entries that are not selected
+     */
+    public ObjectList<RawZipReader.Entry> getOthers() {
+        return ObjectLists.unmodifiable(others);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
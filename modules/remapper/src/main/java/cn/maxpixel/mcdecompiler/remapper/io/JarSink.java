@@ -0,0 +1,358 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.io;
+
+import cn.maxpixel.mcdecompiler.common.app.util.FileUtil;
+import cn.maxpixel.rewh.logging.LogManager;
+import cn.maxpixel.rewh.logging.Logger;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import static cn.maxpixel.mcdecompiler.remapper.io.RawZipReader.*;
+
+/**
+ * A jar writer that streams entries straight to disk in a deterministic order.<br>
+ * Every entry occupies a slot obtained from {@link #reserve()}, and entries are written in the order the slots are
+ * reserved, no matter which thread completes them first. At most {@link #WINDOW} slots can be in flight, so memory
+ * usage is bounded. Each reserved slot must be completed exactly once by {@link #put}, {@link #putRaw} or
+ * {@link #skip}.<br>
+ * Entries are compressed by the completing thread and written by a single writer thread. Entries copied from a
+ * {@link RawZipReader} keep their compressed payload and are never inflated or deflated again. Large ones are streamed
+ * from their zips, so entries of any size, including ZIP64 ones, are copied without being held in memory. The central
+ * directory is written once when this sink is closed.
+ */
+public class JarSink implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    public static final int WINDOW = 256;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int DOS_TIME = (1 << 21) | (1 << 16);// 1980-01-01 00:00:00, so that the output is reproducible
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private static final int MAX_BUFFERED = 1 << 20;// Larger raw entries are streamed from their zips by the writer thread
+    private static final Record END = new Record(-1, null, ZipEntry.STORED, 0, 0, 0, 0, null, null);
+
+    private final ArrayBlockingQueue<Record> queue = new ArrayBlockingQueue<>(WINDOW + 1);
+    private final Semaphore window = new Semaphore(WINDOW);
+    private int reserved;
+    // Only accessed by the writer thread
+    private final Int2ObjectOpenHashMap<Record> pending = new Int2ObjectOpenHashMap<>();
+    private int next;
+    private final ObjectOpenHashSet<String> written = new ObjectOpenHashSet<>();
+    private final ObjectArrayList<CentralEntry> centralDirectory = new ObjectArrayList<>();
+    private final ByteBuffer header = ByteBuffer.allocate(ZIP64_END_SIZE + ZIP64_LOCATOR_SIZE + END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final OutputStream out;
+    private long position;
+
+    private final Thread writer;
+    private volatile IOException failure;
+    private boolean closed;
+
+    public JarSink(@NotNull Path target) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(FileUtil.makeParentDirs(target)), 65536);
+        this.writer = new Thread(this::run, "Jar Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Reserve the next slot. Blocks if too many slots are in flight.<br>
+     * This method is not thread-safe. It is meant to be called by a single dispatching thread.
+     * @return Index of the reserved slot
+     * @throws IOException If the writer has failed
+     */
+    public int reserve() throws IOException {
+        checkFailure();
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted when reserving a slot");
+        }
+        return reserved++;
+    }
+
+    /**
+     * Compress and queue an entry to be written
+     * @param index Index of the reserved slot
+     * @param name Name of the entry
+     * @param bytes Content of the entry. Must not be modified after this call
+     */
+    public void put(int index, @NotNull String name, byte @NotNull [] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setInput(bytes);
+        deflater.finish();
+        byte[] buf = new byte[bytes.length + (bytes.length >> 3) + 64];
+        int len = 0;
+        while (!deflater.finished()) {
+            if (len == buf.length) buf = Arrays.copyOf(buf, buf.length << 1);
+            len += deflater.deflate(buf, len, buf.length - len);
+        }
+        if (len < bytes.length) enqueue(new Record(index, name, ZipEntry.DEFLATED, DOS_TIME, (int) crc.getValue(), len, bytes.length, buf, null));
+        else enqueue(new Record(index, name, ZipEntry.STORED, DOS_TIME, (int) crc.getValue(), bytes.length, bytes.length, bytes, null));
+    }
+
+    /**
+     * Queue an entry of another zip to be copied as-is. The slot is skipped if the entry cannot be read.<br>
+     * Large entries are copied from the zip when they are written, so the reader must not be closed before this sink
+     * @param index Index of the reserved slot
+     * @param entry The entry to copy
+     * @throws IOException If the entry cannot be read
+     */
+    public void putRaw(int index, @NotNull RawZipReader.Entry entry) throws IOException {
+        byte[] raw = null;
+        try {
+            if (entry.compressedSize > MAX_BUFFERED) entry.checkRaw();
+            else raw = entry.readRaw();
+        } catch (IOException e) {
+            skip(index);
+            throw e;
+        }
+        enqueue(new Record(index, entry.getName(), entry.method, entry.dosTime, entry.crc, entry.compressedSize, entry.size,
+                raw, raw == null ? entry : null));
+    }
+
+    /**
+     * Complete the slot without writing anything
+     * @param index Index of the reserved slot
+     */
+    public void skip(int index) {
+        enqueue(new Record(index, null, ZipEntry.STORED, 0, 0, 0, 0, null, null));
+    }
+
+    private void enqueue(Record record) {
+        boolean interrupted = false;
+        while (true) {// The queue is larger than the window, so this won't block for long
+            try {
+                queue.put(Objects.requireNonNull(record));
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private void run() {
+        while (true) {
+            Record record;
+            try {
+                record = queue.take();
+            } catch (InterruptedException e) {
+                failure = new InterruptedIOException("Jar writer interrupted");
+                return;
+            }
+            if (record == END) return;
+            if (record.index != next) {
+                pending.put(record.index, record);
+                continue;
+            }
+            consume(record);
+            while ((record = pending.remove(next)) != null) consume(record);
+        }
+    }
+
+    private void consume(Record record) {
+        next++;
+        try {
+            if (failure != null || record.name == null) return;// Keep consuming so that producers won't block forever
+            if (!written.add(record.name)) {
+                LOGGER.warn("Duplicate entry \"{}\", skipping", record.name);
+                return;
+            }
+            write(record);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            window.release();
+        }
+    }
+
+    private void write(Record record) throws IOException {
+        byte[] name = record.name.getBytes(StandardCharsets.UTF_8);
+        centralDirectory.add(new CentralEntry(name, record.method, record.dosTime, record.crc, record.compressedSize, record.size, position));
+        boolean zip64 = record.size >= ZIP64_MAGIC || record.compressedSize >= ZIP64_MAGIC;
+        header.clear();
+        header.putInt(LOCAL_HEADER_SIG)
+                .putShort((short) (zip64 ? VERSION_ZIP64 : VERSION))
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) record.method)
+                .putInt(record.dosTime)
+                .putInt(record.crc)
+                .putInt((int) (zip64 ? ZIP64_MAGIC : record.compressedSize))
+                .putInt((int) (zip64 ? ZIP64_MAGIC : record.size))
+                .putShort((short) name.length)
+                .putShort((short) (zip64 ? 20 : 0));
+        writeHeader();
+        out.write(name);
+        position += name.length;
+        if (zip64) {// The local zip64 extra field must contain both sizes
+            header.clear();
+            header.putShort((short) ZIP64_EXTRA_ID).putShort((short) 16).putLong(record.size).putLong(record.compressedSize);
+            writeHeader();
+        }
+        if (record.data != null) out.write(record.data, 0, (int) record.compressedSize);
+        else record.source.transferRaw(out);
+        position += record.compressedSize;
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(header.array(), 0, header.position());
+        position += header.position();
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long cdOffset = position;
+        for (CentralEntry entry : centralDirectory) {
+            boolean zip64Sizes = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+            boolean zip64Offset = entry.offset >= ZIP64_MAGIC;
+            int extraSize = (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0);
+            int version = extraSize != 0 ? VERSION_ZIP64 : VERSION;
+            header.clear();
+            header.putInt(CENTRAL_HEADER_SIG)
+                    .putShort((short) version)
+                    .putShort((short) version)
+                    .putShort((short) FLAG_UTF8)
+                    .putShort((short) entry.method)
+                    .putInt(entry.dosTime)
+                    .putInt(entry.crc)
+                    .putInt((int) (zip64Sizes ? ZIP64_MAGIC : entry.compressedSize))
+                    .putInt((int) (zip64Sizes ? ZIP64_MAGIC : entry.size))
+                    .putShort((short) entry.name.length)
+                    .putShort((short) (extraSize != 0 ? 4 + extraSize : 0))
+                    .putShort((short) 0)// comment
+                    .putShort((short) 0)// disk
+                    .putShort((short) 0)// internal attributes
+                    .putInt(0)// external attributes
+                    .putInt((int) (zip64Offset ? ZIP64_MAGIC : entry.offset));
+            writeHeader();
+            out.write(entry.name);
+            position += entry.name.length;
+            if (extraSize != 0) {// Fields are in the order of size, compressed size and offset
+                header.clear();
+                header.putShort((short) ZIP64_EXTRA_ID).putShort((short) extraSize);
+                if (zip64Sizes) header.putLong(entry.size).putLong(entry.compressedSize);
+                if (zip64Offset) header.putLong(entry.offset);
+                writeHeader();
+            }
+        }
+        long cdSize = position - cdOffset;
+        int count = centralDirectory.size();
+        header.clear();
+        if (count >= 0xFFFF || cdOffset >= ZIP64_MAGIC || cdSize >= ZIP64_MAGIC) {
+            long end64Offset = position;
+            header.putInt(ZIP64_END_SIG)
+                    .putLong(ZIP64_END_SIZE - 12)
+                    .putShort((short) VERSION_ZIP64)
+                    .putShort((short) VERSION_ZIP64)
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(count)
+                    .putLong(count)
+                    .putLong(cdSize)
+                    .putLong(cdOffset);
+            header.putInt(ZIP64_LOCATOR_SIG)
+                    .putInt(0)
+                    .putLong(end64Offset)
+                    .putInt(1);
+        }
+        header.putInt(END_SIG)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(count, 0xFFFF))
+                .putShort((short) Math.min(count, 0xFFFF))
+                .putInt((int) Math.min(cdSize, ZIP64_MAGIC))
+                .putInt((int) Math.min(cdOffset, ZIP64_MAGIC))
+                .putShort((short) 0);
+        writeHeader();
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null) throw new IOException("Jar writer failed", e);
+    }
+
+    /**
+     * Wait for all queued entries to be written, then write the central directory and close the file.<br>
+     * All reserved slots must have been completed before calling this method.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(END);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (failure == null && next != reserved) failure = new IOException((reserved - next) + " reserved slots are not completed");
+        try (out) {
+            if (failure == null) writeCentralDirectory();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+            else failure.addSuppressed(e);
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        checkFailure();
+    }
+
+    /**
+     * @param data The payload, or null if it is copied from the source
+     * @param source The entry to copy the payload from, if the payload is not in memory
+     */
+    private record Record(int index, String name, int method, int dosTime, int crc, long compressedSize, long size, byte[] data,
+                          RawZipReader.Entry source) {}
+
+    private record CentralEntry(byte[] name, int method, int dosTime, int crc, long compressedSize, long size, long offset) {}
+}
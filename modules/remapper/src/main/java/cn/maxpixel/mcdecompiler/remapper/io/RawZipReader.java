@@ -0,0 +1,263 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.io;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.ObjectLists;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * A zip reader that exposes the raw records of the entries.<br>
+ * Only the central directory is parsed when opening. The compressed payload of an entry can be read as-is, so it
+ * can be copied to another zip without being inflated and deflated again. Reading is thread-safe.
+ */
+public class RawZipReader implements Closeable {
+    static final int LOCAL_HEADER_SIG = 0x04034b50;
+    static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    static final int END_SIG = 0x06054b50;
+    static final int ZIP64_END_SIG = 0x06064b50;
+    static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    static final int LOCAL_HEADER_SIZE = 30;
+    static final int CENTRAL_HEADER_SIZE = 46;
+    static final int END_SIZE = 22;
+    static final int ZIP64_END_SIZE = 56;
+    static final int ZIP64_LOCATOR_SIZE = 20;
+    static final int ZIP64_EXTRA_ID = 0x0001;
+    static final int FLAG_ENCRYPTED = 1;
+
+    private final FileChannel channel;
+    private final ObjectArrayList<Entry> entries;
+
+    public RawZipReader(@NotNull Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.entries = readCentralDirectory();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ObjectArrayList<Entry> readCentralDirectory() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < END_SIZE) throw new ZipException("Not a zip file");
+        int tailSize = (int) Math.min(fileSize, END_SIZE + 0xFFFF);
+        ByteBuffer tail = read(fileSize - tailSize, tailSize);
+        int endPos = -1;
+        for (int i = tailSize - END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == END_SIG) {
+                endPos = i;
+                break;
+            }
+        }
+        if (endPos < 0) throw new ZipException("End of central directory not found");
+        long count = Short.toUnsignedLong(tail.getShort(endPos + 10));
+        long cdSize = Integer.toUnsignedLong(tail.getInt(endPos + 12));
+        long cdOffset = Integer.toUnsignedLong(tail.getInt(endPos + 16));
+        long endOffset = fileSize - tailSize + endPos;
+        if ((count == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) && endOffset >= ZIP64_LOCATOR_SIZE) {
+            ByteBuffer locator = read(endOffset - ZIP64_LOCATOR_SIZE, ZIP64_LOCATOR_SIZE);
+            if (locator.getInt(0) == ZIP64_LOCATOR_SIG) {
+                ByteBuffer end64 = read(locator.getLong(8), ZIP64_END_SIZE);
+                if (end64.getInt(0) != ZIP64_END_SIG) throw new ZipException("Invalid zip64 end of central directory");
+                count = end64.getLong(32);
+                cdSize = end64.getLong(40);
+                cdOffset = end64.getLong(48);
+            }
+        }
+        if (cdSize > Integer.MAX_VALUE) throw new ZipException("Central directory too large");
+        ByteBuffer cd = read(cdOffset, (int) cdSize);
+        ObjectArrayList<Entry> entries = new ObjectArrayList<>((int) Math.min(count, 65536));
+        int pos = 0;
+        for (long i = 0; i < count; i++) {
+            if (cd.getInt(pos) != CENTRAL_HEADER_SIG) throw new ZipException("Invalid central directory header");
+            int flags = Short.toUnsignedInt(cd.getShort(pos + 8));
+            int method = Short.toUnsignedInt(cd.getShort(pos + 10));
+            int dosTime = cd.getInt(pos + 12);
+            int crc = cd.getInt(pos + 16);
+            long compressedSize = Integer.toUnsignedLong(cd.getInt(pos + 20));
+            long size = Integer.toUnsignedLong(cd.getInt(pos + 24));
+            int nameLen = Short.toUnsignedInt(cd.getShort(pos + 28));
+            int extraLen = Short.toUnsignedInt(cd.getShort(pos + 30));
+            int commentLen = Short.toUnsignedInt(cd.getShort(pos + 32));
+            long offset = Integer.toUnsignedLong(cd.getInt(pos + 42));
+            byte[] name = new byte[nameLen];
+            cd.get(pos + CENTRAL_HEADER_SIZE, name);
+            int extraPos = pos + CENTRAL_HEADER_SIZE + nameLen;
+            for (int e = extraPos, end = extraPos + extraLen; e + 4 <= end; ) {
+                int id = Short.toUnsignedInt(cd.getShort(e));
+                int len = Short.toUnsignedInt(cd.getShort(e + 2));
+                if (id == ZIP64_EXTRA_ID) {
+                    int p = e + 4;
+                    if (size == 0xFFFFFFFFL) {
+                        size = cd.getLong(p);
+                        p += 8;
+                    }
+                    if (compressedSize == 0xFFFFFFFFL) {
+                        compressedSize = cd.getLong(p);
+                        p += 8;
+                    }
+                    if (offset == 0xFFFFFFFFL) offset = cd.getLong(p);
+                    break;
+                }
+                e += 4 + len;
+            }
+            pos = extraPos + extraLen + commentLen;
+            String nameString = new String(name, StandardCharsets.UTF_8);
+            if (nameString.endsWith("/")) continue;// Directory
+            entries.add(new Entry(nameString, flags, method, dosTime, crc, compressedSize, size, offset));
+        }
+        return entries;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) throw new EOFException();
+        }
+        return buf.flip();
+    }
+
+    /**
+     * @return All non-directory entries, in the order of the central directory
+     */
+    public ObjectList<Entry> getEntries() {
+        return ObjectLists.unmodifiable(entries);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public final class Entry {
+        private final String name;
+        final int flags;
+        final int method;
+        final int dosTime;
+        final int crc;
+        final long compressedSize;
+        final long size;
+        private final long localHeaderOffset;
+
+        private Entry(String name, int flags, int method, int dosTime, int crc, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Read the payload of this entry as it is stored in the zip
+         * @return The compressed bytes
+         */
+        public byte[] readRaw() throws IOException {
+            checkRaw();
+            if (compressedSize > Integer.MAX_VALUE) throw new ZipException("Entry too large: " + name);
+            return read(dataOffset(), (int) compressedSize).array();
+        }
+
+        /**
+         * Copy the payload of this entry as it is stored in the zip, without holding it in memory
+         * @param out The stream to copy to
+         */
+        public void transferRaw(@NotNull OutputStream out) throws IOException {
+            checkRaw();
+            ByteBuffer buf = ByteBuffer.allocate(65536);
+            for (long pos = dataOffset(), end = pos + compressedSize; pos < end; ) {
+                buf.clear().limit((int) Math.min(buf.capacity(), end - pos));
+                int n = channel.read(buf, pos);
+                if (n < 0) throw new EOFException();
+                out.write(buf.array(), 0, n);
+                pos += n;
+            }
+        }
+
+        void checkRaw() throws ZipException {
+            if ((flags & FLAG_ENCRYPTED) != 0) throw new ZipException("Encrypted entry is not supported: " + name);
+        }
+
+        private long dataOffset() throws IOException {
+            ByteBuffer header = read(localHeaderOffset, LOCAL_HEADER_SIZE);
+            if (header.getInt(0) != LOCAL_HEADER_SIG) throw new ZipException("Invalid local header: " + name);
+            return localHeaderOffset + LOCAL_HEADER_SIZE + Short.toUnsignedInt(header.getShort(26)) +
+                    Short.toUnsignedInt(header.getShort(28));
+        }
+
+        /**
+         * Read and decompress this entry
+         * @return The uncompressed bytes
+         */
+        public byte[] readBytes() throws IOException {
+            byte[] raw = readRaw();
+            return switch (method) {
+                case ZipEntry.STORED -> raw;
+                case ZipEntry.DEFLATED -> {
+                    if (size > Integer.MAX_VALUE) throw new ZipException("Entry too large: " + name);
+                    byte[] bytes = new byte[(int) size];
+                    Inflater inflater = new Inflater(true);
+                    try {
+                        inflater.setInput(raw);
+                        int len = 0;
+                        while (len < bytes.length && !inflater.finished()) {
+                            int n = inflater.inflate(bytes, len, bytes.length - len);
+                            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                            len += n;
+                        }
+                        if (len != bytes.length) throw new ZipException("Invalid entry size: " + name);
+                    } catch (DataFormatException e) {
+                        throw new ZipException("Invalid compressed data of " + name + ": " + e.getMessage());
+                    } finally {
+                        inflater.end();
+                    }
+                    yield bytes;
+                }
+                default -> throw new ZipException("Unsupported compression method " + method + " of " + name);
+            };
+        }
+    }
+}
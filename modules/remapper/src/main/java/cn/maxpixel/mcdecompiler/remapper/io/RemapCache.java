@@ -0,0 +1,303 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.io;
+
+import cn.maxpixel.mcdecompiler.common.app.util.MiscUtils;
+import cn.maxpixel.mcdecompiler.mapping.Mapping;
+import cn.maxpixel.mcdecompiler.mapping.NameView;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
+import cn.maxpixel.mcdecompiler.mapping.component.LocalVariableTable;
+import cn.maxpixel.mcdecompiler.mapping.component.StaticIdentifiable;
+import cn.maxpixel.mcdecompiler.mapping.remapper.ClassifiedMappingRemapper;
+import cn.maxpixel.mcdecompiler.remapper.DeobfuscationOptions;
+import cn.maxpixel.mcdecompiler.remapper.Deobfuscator;
+import cn.maxpixel.mcdecompiler.remapper.processing.ClassHierarchy;
+import cn.maxpixel.rewh.logging.LogManager;
+import cn.maxpixel.rewh.logging.Logger;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cn.maxpixel.mcdecompiler.remapper.util.DigestUtil.*;
+
+/**
+ * On-disk cache of remapped classes.<br>
+ * A class is keyed by its bytes, the mappings of every class name it refers to along with their supertypes, and the
+ * options that affect the remapped bytes. A hit can be written to the output directly without visiting the class.
+ *
+ * @implNote Class names are collected from all the UTF8 constants, so names in descriptors, signatures and strings are
+ *           covered. This may over-invalidate, but never returns stale bytes when the mapping of a referenced class changes.
+ */
+public class RemapCache {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String VERSION = "3";
+    private static final int CONSTANT_UTF8 = 1;
+    private static final String DELIMITERS = ";<>()[:^*+";
+    private static final String PREFIXES = "BCDFIJSZV-";
+
+    private final Path dir;
+    private final ClassifiedMappingRemapper remapper;
+    private final ClassHierarchy hierarchy;
+    private final Object2ObjectMap<String, byte[]> classes;
+    private final byte[] context;
+    private final ConcurrentHashMap<String, byte[]> entryDigests = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Constructor
+     * @param dir The cache directory
+     * @param options Options of the deobfuscation
+     * @param remapper The remapper used to remap the classes
+     * @param hierarchy Hierarchy of the classes
+     * @param classes Classes to be remapped. Key is the name of the entry, value is the bytes of the class
+     */
+    public RemapCache(@NotNull Path dir, @NotNull DeobfuscationOptions options, @NotNull ClassifiedMappingRemapper remapper,
+                      @NotNull ClassHierarchy hierarchy, @NotNull Object2ObjectMap<String, byte[]> classes) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.remapper = Objects.requireNonNull(remapper);
+        this.hierarchy = Objects.requireNonNull(hierarchy);
+        this.classes = Objects.requireNonNull(classes);
+        this.context = createContext(options, remapper);
+    }
+
+    private static byte[] createContext(DeobfuscationOptions options, ClassifiedMappingRemapper remapper) throws IOException {
+        MessageDigest md = newDigest();
+        update(md, VERSION);
+        update(md, Deobfuscator.ASM_VERSION);
+        md.update(new byte[] {flag(options.includeOthers), flag(options.rvn), flag(options.reverse),
+                flag(remapper.isMethodStaticIdentifiable())});
+        update(md, remapper.getNameView().toString());
+        for (String extraClass : new TreeSet<>(options.extraClasses)) update(md, extraClass);
+        md.update((byte) 0);
+        update(md, options.refMap);
+        TreeSet<Path> extraJars = new TreeSet<>();
+        for (Path jar : options.extraJars) extraJars.add(jar.toAbsolutePath().normalize());
+        for (Path jar : extraJars) updateJar(md, jar);
+        return md.digest();
+    }
+
+    /**
+     * Compute the key of the given class
+     * @param classBytes The bytes of the class to remap
+     * @return The key of the class
+     */
+    public String computeKey(byte @NotNull [] classBytes) {
+        ObjectList<String> names = collectNames(classBytes);
+        MessageDigest md = newDigest();
+        md.update(context);
+        md.update(newDigest().digest(classBytes));
+        for (String name : names) {
+            byte[] digest = getEntryDigest(name);
+            if (digest != null) md.update(digest);
+            else {
+                update(md, name);
+                md.update((byte) 0);
+            }
+        }
+        return MiscUtils.createHashString(md).toString();
+    }
+
+    /**
+     * Gets the cached bytes of the given key
+     * @param key The key
+     * @return The remapped class, or null if not cached
+     */
+    public byte @Nullable [] get(@NotNull String key) {
+        try {
+            byte[] bytes = Files.readAllBytes(resolve(key));
+            if (bytes.length >= 4 && (bytes[0] & 0xFF) == 0xCA && (bytes[1] & 0xFF) == 0xFE && (bytes[2] & 0xFF) == 0xBA &&
+                    (bytes[3] & 0xFF) == 0xBE) {
+                hits.incrementAndGet();
+                return bytes;
+            }
+            LOGGER.warn("Ignoring corrupted cache entry {}", key);
+        } catch (NoSuchFileException ignored) {
+        } catch (IOException e) {
+            LOGGER.warn("Error reading cache entry {}", key, e);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache the remapped bytes with the given key
+     * @param key The key
+     * @param bytes The remapped class
+     */
+    public void put(@NotNull String key, byte @NotNull [] bytes) {
+        Path target = resolve(key);
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(Files.createDirectories(target.getParent()), key, ".tmp");
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Error writing cache entry {}", key, e);
+            if (temp != null) try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Path resolve(String key) {
+        return dir.resolve(key.substring(0, 2)).resolve(key.substring(2));
+    }
+
+    /**
+     * Collect all the possible class names referenced by the class, then their supertypes
+     */
+    private ObjectList<String> collectNames(byte[] classBytes) {
+        ClassReader reader = new ClassReader(classBytes);
+        ObjectOpenHashSet<String> seen = new ObjectOpenHashSet<>();
+        ObjectArrayList<String> names = new ObjectArrayList<>();
+        for (int i = 1; i < reader.getItemCount(); i++) {
+            int offset = reader.getItem(i);
+            if (offset == 0 || classBytes[offset - 1] != CONSTANT_UTF8) continue;
+            String s = new String(classBytes, offset + 2, reader.readUnsignedShort(offset), StandardCharsets.UTF_8);
+            for (int start = 0, j = 0; j <= s.length(); j++) {
+                if (j == s.length() || DELIMITERS.indexOf(s.charAt(j)) >= 0) {
+                    if (j > start) addCandidates(s.substring(start, j), seen, names);
+                    start = j + 1;
+                }
+            }
+        }
+        for (int i = 0, size = names.size(); i < size; i++) {
+            ObjectList<String> ancestors = hierarchy.getAncestors(names.get(i));
+            if (ancestors != null) for (String ancestor : ancestors) {
+                if (seen.add(ancestor)) names.add(ancestor);
+            }
+        }
+        return names;
+    }
+
+    private static void addCandidates(String token, ObjectOpenHashSet<String> seen, ObjectArrayList<String> names) {
+        if (seen.add(token)) names.add(token);
+        int i = 0;
+        while (i < token.length() && PREFIXES.indexOf(token.charAt(i)) >= 0) i++;
+        if (i < token.length() - 1 && token.charAt(i) == 'L') {
+            String name = token.substring(i + 1);
+            if (seen.add(name)) names.add(name);
+        }
+        if (token.indexOf('.') >= 0) {
+            String name = token.replace('.', '/');
+            if (seen.add(name)) names.add(name);
+        }
+    }
+
+    /**
+     * @return The digest of the mapping and the bytes of the class, or null if neither of them exists
+     */
+    private byte[] getEntryDigest(String name) {
+        byte[] digest = entryDigests.get(name);
+        if (digest != null) return digest;
+        ClassMapping<? extends Mapping> cm = remapper.getClassMappingUnmapped(name);
+        byte[] bytes = classes.get(name.concat(".class"));
+        if (cm == null && bytes == null) return null;
+        MessageDigest md = newDigest();
+        update(md, name);
+        if (cm != null) {
+            md.update((byte) 1);
+            updateMapping(md, cm.mapping);
+            md.update((byte) 2);
+            for (Mapping field : cm.getFields()) updateMapping(md, field);
+            md.update((byte) 3);
+            for (Mapping method : cm.getMethods()) updateMapping(md, method);
+        }
+        if (bytes != null) {
+            md.update((byte) 4);
+            md.update(newDigest().digest(bytes));
+        }
+        digest = md.digest();
+        entryDigests.putIfAbsent(name, digest);
+        return digest;
+    }
+
+    /**
+     * Digest the parts of the mapping that the remapper actually uses
+     */
+    private void updateMapping(MessageDigest md, Mapping mapping) {
+        NameView view = remapper.getNameView();
+        update(md, view.getUnmappedName(mapping));
+        update(md, view.getMappedName(mapping));
+        Descriptor desc;
+        if ((desc = mapping.getComponent(Descriptor.Unmapped.class)) != null) {
+            md.update((byte) 'U');
+            update(md, desc.descriptor);
+        }
+        if ((desc = mapping.getComponent(Descriptor.Mapped.class)) != null) {
+            md.update((byte) 'M');
+            update(md, desc.descriptor);
+        }
+        Descriptor.Namespaced nd = mapping.getComponent(Descriptor.Namespaced.class);
+        if (nd != null) {
+            md.update((byte) 'N');
+            update(md, nd.descriptorNamespace);
+            update(md, nd.descriptor);
+        }
+        if (mapping.hasComponent(StaticIdentifiable.class)) md.update((byte) 'S');
+        LocalVariableTable<? extends Mapping> lvt = mapping.getComponent(LocalVariableTable.Paired.class);
+        if (lvt == null) lvt = mapping.getComponent(LocalVariableTable.Namespaced.class);
+        if (lvt != null) {
+            md.update((byte) 'L');
+            IntArrayList indexes = new IntArrayList(lvt.getLocalVariableIndexes());
+            indexes.sort(null);
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.getInt(i);
+                Mapping m = lvt.getLocalVariable(index);
+                if (m == null) continue;
+                update(md, index);
+                update(md, view.getMappedName(m));
+            }
+        }
+        md.update((byte) 0);
+    }
+
+    private static byte flag(boolean b) {
+        return (byte) (b ? 1 : 0);
+    }
+}
@@ -20,20 +20,28 @@ package cn.maxpixel.mcdecompiler.remapper.processing;
 
 import cn.maxpixel.mcdecompiler.mapping.remapper.MappingRemapper;
 import org.jetbrains.annotations.NotNull;
-import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.Remapper;
 
-import java.lang.reflect.Modifier;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ClassFileRemapper extends Remapper {
     public final MappingRemapper remapper;
     public final ExtraClassesInformation eci;
+    public final ClassHierarchy hierarchy;
+    // Whether the members can be resolved through the hierarchy. They are probed on every lookup otherwise
+    private final boolean resolveMembers;
+    // Includes the classes without any member mapping, so misses are answered without resolving again
+    private final ConcurrentHashMap<String, ClassHierarchy.Members> members = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
 
     public ClassFileRemapper(@NotNull MappingRemapper remapper, @NotNull ExtraClassesInformation eci) {
         this.remapper = Objects.requireNonNull(remapper);
         this.eci = Objects.requireNonNull(eci);
+        this.hierarchy = new ClassHierarchy(remapper, eci);
+        this.resolveMembers = remapper.canVisitMembers();
     }
 
     @Override
@@ -41,6 +49,16 @@ public class ClassFileRemapper extends Remapper {
         return remapper.mapClassOrDefault(internalName);
     }
 
+    @Override
+    public String mapDesc(String descriptor) {
+        return remapper.mapDesc(descriptor);
+    }
+
+    @Override
+    public String mapMethodDesc(String methodDescriptor) {
+        return remapper.mapMethodDesc(methodDescriptor);
+    }
+
     @Override
     public String mapAnnotationAttributeName(String descriptor, String name) {
         // annotation descriptors cannot be primitive types, right?
@@ -51,44 +69,13 @@ public class ClassFileRemapper extends Remapper {
     @Override
     public String mapMethodName(String owner, String name, String descriptor) {
         if (name.charAt(0) != '<') { // equivalent to !(name.equals("<init>") || name.equals("<clinit>"))
-            String mapped = remapper.mapMethod(owner, name, descriptor);
-            return mapped == null ? processSuperMethod(owner, name, descriptor).map(a -> a[1]).orElse(name) : mapped;
+            String mapped = resolveMembers ? getMembers(owner).mapMethod(name, descriptor) :
+                    hierarchy.probeMethod(owner, name, descriptor);
+            return mapped == null ? name : mapped;
         }
         return name;
     }
 
-    private Optional<String[]> processSuperMethod(String owner, String name, String descriptor) {// TODO: Optimize this
-        return Optional.ofNullable(eci.getSuperNames(owner))
-                .flatMap(superNames -> {
-                    String nameAndDesc = name.concat(descriptor);
-                    return superNames.parallelStream().map(cls -> {
-                        var mapped = remapper.mapMethod(cls, name, descriptor);
-                        return mapped == null ? null : new String[] {cls, mapped};
-                    }).filter(Objects::nonNull)
-                        .reduce((l, r) -> reduceMethod(nameAndDesc, l, r))
-                        .or(() -> superNames.parallelStream()
-                                .map(n -> processSuperMethod(n, name, descriptor))
-                                .filter(Optional::isPresent)
-                                .map(Optional::get)
-                                .reduce((l, r) -> reduceMethod(nameAndDesc, l, r))
-                        );
-                });
-    }
-
-    // String[] {0: unmapped owner class name, 1: mapped name}
-    private String[] reduceMethod(String nameAndDesc, @NotNull String[] left, @NotNull String[] right) {
-        if (left[0].equals(right[0])) return left;// just checking owner is enough
-        if (left[1].equals(right[1])) return left;// may be an override
-        int leftAcc = eci.getAccessFlags(left[0], nameAndDesc);
-        int rightAcc = eci.getAccessFlags(right[0], nameAndDesc);
-        if ((leftAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) {
-            if ((rightAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) throw new IllegalArgumentException("This can't happen!");
-            return left;
-        } else if ((rightAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) return right;
-        else if (Modifier.isPrivate(leftAcc) || Modifier.isPrivate(rightAcc)) throw new IllegalArgumentException("This can't happen!");
-        else throw new IllegalArgumentException("Method duplicated... This should not happen!");
-    }
-
     @Override
     public String mapRecordComponentName(String owner, String name, String descriptor) {
         return mapFieldName(owner, name, descriptor);
@@ -96,39 +83,31 @@ public class ClassFileRemapper extends Remapper {
 
     @Override
     public String mapFieldName(String owner, String name, String descriptor) {
-        String mapped = remapper.mapField(owner, name);
-        return mapped == null ? processSuperField(owner, name).map(a -> a[1]).orElse(name) : mapped;
+        String mapped = resolveMembers ? getMembers(owner).mapField(name) : hierarchy.probeField(owner, name);
+        return mapped == null ? name : mapped;
+    }
+
+    private ClassHierarchy.Members getMembers(String owner) {
+        ClassHierarchy.Members m = members.get(owner);
+        if (m != null) {
+            hits.increment();
+            return m;
+        }
+        misses.increment();
+        return members.computeIfAbsent(owner, hierarchy::getMembers);
     }
 
-    private Optional<String[]> processSuperField(String owner, String name) {
-        return Optional.ofNullable(eci.getSuperNames(owner))
-                .flatMap(superNames -> superNames.parallelStream()
-                        .map(cls -> {
-                            var mapped = remapper.mapField(cls, name);
-                            return mapped == null ? null : new String[] {cls, mapped};
-                        }).filter(Objects::nonNull)
-                        .reduce((l, r) -> reduceField(name, l, r))
-                        .or(() -> superNames.parallelStream()
-                                .map(n -> processSuperField(n, name))
-                                .filter(Optional::isPresent)
-                                .map(Optional::get)
-                                .reduce((l, r) -> reduceField(name, l, r))
-                        )
-                );
+    /**
+     * @return How many member lookups were answered by the resolved classes
+     */
+    public long getHits() {
+        return hits.sum();
     }
 
-    // String[] {0: unmapped owner class name, 1: mapped name}
-    private String[] reduceField(String name, @NotNull String[] left, @NotNull String[] right) {
-        if (left[0].equals(right[0])) return left;// just checking owner is enough
-        int leftAcc = eci.getAccessFlags(left[0], name);
-        int rightAcc = eci.getAccessFlags(right[0], name);
-        if ((leftAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) {
-            if ((rightAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0)
-                throw new IllegalArgumentException("This can't happen!");
-            return left;
-        } else if ((rightAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) return right;
-        else if (Modifier.isPrivate(leftAcc) || Modifier.isPrivate(rightAcc))
-            throw new IllegalArgumentException("This can't happen!");
-        throw new IllegalArgumentException("Field duplicated... This should not happen!");
+    /**
+     * @return How many member lookups needed to resolve the class first
+     */
+    public long getMisses() {
+        return misses.sum();
     }
 }
\ No newline at end of file
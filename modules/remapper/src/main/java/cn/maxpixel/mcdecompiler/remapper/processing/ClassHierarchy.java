@@ -0,0 +1,403 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.processing;
+
+import cn.maxpixel.mcdecompiler.mapping.remapper.MappingRemapper;
+import it.unimi.dsi.fastutil.objects.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Opcodes;
+
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+
+/**
+ * Flattened class hierarchy and the members each class inherits from its supertypes.<br>
+ * Everything is resolved once at construction, so the information must be fully built by then.
+ * After that this class is read-only and safe to share between threads.<br>
+ * Inherited members are only precomputed if the remapper {@link MappingRemapper#canVisitMembers() can visit members}.
+ * Otherwise use {@link #probeMethod} and {@link #probeField}, which look the supertypes up on every call.
+ */
+public class ClassHierarchy {
+    private static final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> NO_METHODS = new Object2ObjectOpenHashMap<>();
+    private static final Object2ObjectOpenHashMap<String, String[]> NO_FIELDS = new Object2ObjectOpenHashMap<>();
+
+    private final MappingRemapper remapper;
+    private final ExtraClassesInformation eci;
+
+    private final Object2ObjectOpenHashMap<String, ObjectList<String>> ancestors = new Object2ObjectOpenHashMap<>();
+    // class -> member name -> member descriptor -> String[] {0: unmapped owner class name, 1: mapped name}
+    private final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>> methods = new Object2ObjectOpenHashMap<>();
+    // class -> member name -> String[] {0: unmapped owner class name, 1: mapped name}
+    private final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> fields = new Object2ObjectOpenHashMap<>();
+
+    // Only used while building. Own members, and own members overlaid on the inherited ones
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>> ownMethods = new Object2ObjectOpenHashMap<>();
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>> visibleMethods = new Object2ObjectOpenHashMap<>();
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> ownFields = new Object2ObjectOpenHashMap<>();
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> visibleFields = new Object2ObjectOpenHashMap<>();
+    private ObjectOpenHashSet<String> building = new ObjectOpenHashSet<>();
+
+    public ClassHierarchy(@NotNull MappingRemapper remapper, @NotNull ExtraClassesInformation eci) {
+        this.remapper = Objects.requireNonNull(remapper);
+        this.eci = Objects.requireNonNull(eci);
+        boolean members = remapper.canVisitMembers();
+        for (String cls : eci.getClassesWithSuperNames()) {
+            computeAncestors(cls);
+            if (members) {
+                computeMethods(cls);
+                computeFields(cls);
+            }
+        }
+        this.ownMethods = null;
+        this.visibleMethods = null;
+        this.ownFields = null;
+        this.visibleFields = null;
+        this.building = null;
+    }
+
+    /**
+     * Gets all the supertypes of the class, nearest first, without duplicates
+     * @param name Unmapped name of the class
+     * @return The ancestors, or null if the class has no recorded supertypes
+     */
+    public @Nullable ObjectList<String> getAncestors(String name) {
+        return ancestors.get(name);
+    }
+
+    /**
+     * Collects the members visible from a class, which are its own members and the members it inherits
+     * @param owner Unmapped name of the class
+     * @return The members. {@link Members#NONE} if the class neither has nor inherits any member mapping
+     */
+    public @NotNull Members getMembers(String owner) {
+        var ownMethods = new Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String>>();
+        remapper.visitMethods(owner, (name, desc, mapped) -> ownMethods.computeIfAbsent(name, k -> new Object2ObjectOpenHashMap<>())
+                .put(desc, mapped));
+        var ownFields = new Object2ObjectOpenHashMap<String, String>();
+        remapper.visitFields(owner, (name, desc, mapped) -> ownFields.put(name, mapped));
+        var inheritedMethods = methods.getOrDefault(owner, NO_METHODS);
+        var inheritedFields = fields.getOrDefault(owner, NO_FIELDS);
+        if (ownMethods.isEmpty() && ownFields.isEmpty() && inheritedMethods.isEmpty() && inheritedFields.isEmpty()) return Members.NONE;
+        return new Members(ownMethods, ownFields, inheritedMethods, inheritedFields);
+    }
+
+    /**
+     * Maps a method by probing the class and its supertypes with {@link MappingRemapper#mapMethod}
+     * @param owner Unmapped name of the class
+     * @return The mapped name, or null if the method is not mapped
+     * @throws IllegalArgumentException If the method is ambiguously inherited
+     */
+    public @Nullable String probeMethod(String owner, String name, String descriptor) {
+        String mapped = remapper.mapMethod(owner, name, descriptor);
+        return mapped != null ? mapped : unwrap(probeSuperMethod(owner, name, descriptor, name.concat(descriptor)));
+    }
+
+    private String[] probeSuperMethod(String owner, String name, String descriptor, String nameAndDesc) {
+        ObjectList<String> superNames = eci.getSuperNames(owner);
+        if (superNames == null) return null;
+        String[] resolved = null;
+        for (String cls : superNames) {
+            String mapped = remapper.mapMethod(cls, name, descriptor);
+            if (mapped != null) resolved = reduceNullable(nameAndDesc, resolved, new String[] {cls, mapped}, true);
+        }
+        if (resolved != null) return resolved;
+        for (String cls : superNames) {
+            resolved = reduceNullable(nameAndDesc, resolved, probeSuperMethod(cls, name, descriptor, nameAndDesc), true);
+        }
+        return resolved;
+    }
+
+    /**
+     * Maps a field by probing the class and its supertypes with {@link MappingRemapper#mapField}
+     * @param owner Unmapped name of the class
+     * @return The mapped name, or null if the field is not mapped
+     * @throws IllegalArgumentException If the field is ambiguously inherited
+     */
+    public @Nullable String probeField(String owner, String name) {
+        String mapped = remapper.mapField(owner, name);
+        return mapped != null ? mapped : unwrap(probeSuperField(owner, name));
+    }
+
+    private String[] probeSuperField(String owner, String name) {
+        ObjectList<String> superNames = eci.getSuperNames(owner);
+        if (superNames == null) return null;
+        String[] resolved = null;
+        for (String cls : superNames) {
+            String mapped = remapper.mapField(cls, name);
+            if (mapped != null) resolved = reduceNullable(name, resolved, new String[] {cls, mapped}, false);
+        }
+        if (resolved != null) return resolved;
+        for (String cls : superNames) resolved = reduceNullable(name, resolved, probeSuperField(cls, name), false);
+        return resolved;
+    }
+
+    private String[] reduceNullable(String combinedName, String[] left, String[] right, boolean method) {
+        if (left == null) return right;
+        return right == null ? left : reduce(combinedName, left, right, method);
+    }
+
+    private static String unwrap(String[] resolved) {
+        if (resolved == null) return null;
+        if (resolved.length == 1) throw new IllegalArgumentException(resolved[0]);
+        return resolved[1];
+    }
+
+    private ObjectList<String> computeAncestors(String cls) {
+        ObjectList<String> list = ancestors.get(cls);
+        if (list != null) return list;
+        ObjectList<String> superNames = eci.getSuperNames(cls);
+        if (superNames == null || !building.add(cls)) return ObjectLists.emptyList();
+        ObjectOpenHashSet<String> seen = new ObjectOpenHashSet<>();
+        ObjectArrayList<String> result = new ObjectArrayList<>();
+        for (String superName : superNames) {
+            if (seen.add(superName)) result.add(superName);
+        }
+        for (String superName : superNames) {
+            for (String ancestor : computeAncestors(superName)) {
+                if (seen.add(ancestor)) result.add(ancestor);
+            }
+        }
+        building.remove(cls);
+        result.trim();
+        ancestors.put(cls, result);
+        return result;
+    }
+
+    // Methods
+
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> computeMethods(String cls) {
+        var result = methods.get(cls);
+        if (result != null) return result;
+        ObjectList<String> superNames = eci.getSuperNames(cls);
+        if (superNames == null || superNames.isEmpty() || !building.add(cls)) return NO_METHODS;
+        if (superNames.size() == 1) result = visibleMethods(superNames.get(0));
+        else {
+            int size = superNames.size();
+            ObjectArrayList<Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>> own = new ObjectArrayList<>(size);
+            ObjectArrayList<Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>> inherited = new ObjectArrayList<>(size);
+            ObjectOpenHashSet<String> names = new ObjectOpenHashSet<>();
+            for (int i = 0; i < size; i++) {
+                own.add(ownMethods(superNames.get(i)));
+                inherited.add(computeMethods(superNames.get(i)));
+                names.addAll(own.get(i).keySet());
+                names.addAll(inherited.get(i).keySet());
+            }
+            result = names.isEmpty() ? NO_METHODS : new Object2ObjectOpenHashMap<>(names.size());
+            ObjectOpenHashSet<String> descs = new ObjectOpenHashSet<>();
+            for (String name : names) {
+                descs.clear();
+                for (int i = 0; i < size; i++) {
+                    var o = own.get(i).get(name);
+                    if (o != null) descs.addAll(o.keySet());
+                    var in = inherited.get(i).get(name);
+                    if (in != null) descs.addAll(in.keySet());
+                }
+                var byDesc = new Object2ObjectOpenHashMap<String, String[]>(descs.size());
+                for (String desc : descs) {
+                    String nameAndDesc = name.concat(desc);
+                    String[] resolved = resolve(nameAndDesc, own, name, desc);
+                    byDesc.put(desc, resolved != null ? resolved : resolve(nameAndDesc, inherited, name, desc));
+                }
+                result.put(name, byDesc);
+            }
+        }
+        building.remove(cls);
+        methods.put(cls, result);
+        return result;
+    }
+
+    private String[] resolve(String nameAndDesc,
+                             ObjectArrayList<Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>> tables,
+                             String name, String desc) {
+        String[] resolved = null;
+        for (var table : tables) {
+            var byDesc = table.get(name);
+            if (byDesc == null) continue;
+            String[] r = byDesc.get(desc);
+            if (r != null) resolved = resolved == null ? r : reduce(nameAndDesc, resolved, r, true);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return Own methods overlaid on the inherited methods, which is what the subclasses see
+     */
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> visibleMethods(String cls) {
+        var result = visibleMethods.get(cls);
+        if (result != null) return result;
+        var own = ownMethods(cls);
+        var inherited = computeMethods(cls);
+        if (own.isEmpty()) result = inherited;
+        else if (inherited.isEmpty()) result = own;
+        else {
+            result = new Object2ObjectOpenHashMap<>(inherited);
+            for (var entry : Object2ObjectMaps.fastIterable(own)) {
+                var byDesc = inherited.get(entry.getKey());
+                if (byDesc == null) result.put(entry.getKey(), entry.getValue());
+                else {
+                    byDesc = new Object2ObjectOpenHashMap<>(byDesc);
+                    byDesc.putAll(entry.getValue());
+                    result.put(entry.getKey(), byDesc);
+                }
+            }
+        }
+        visibleMethods.put(cls, result);
+        return result;
+    }
+
+    private Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> ownMethods(String cls) {
+        var result = ownMethods.get(cls);
+        if (result != null) return result;
+        var map = new Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>>();
+        remapper.visitMethods(cls, (name, desc, mapped) -> map.computeIfAbsent(name, k -> new Object2ObjectOpenHashMap<>())
+                .put(desc, new String[] {cls, mapped}));
+        result = map.isEmpty() ? NO_METHODS : map;
+        ownMethods.put(cls, result);
+        return result;
+    }
+
+    // Fields
+
+    private Object2ObjectOpenHashMap<String, String[]> computeFields(String cls) {
+        var result = fields.get(cls);
+        if (result != null) return result;
+        ObjectList<String> superNames = eci.getSuperNames(cls);
+        if (superNames == null || superNames.isEmpty() || !building.add(cls)) return NO_FIELDS;
+        if (superNames.size() == 1) result = visibleFields(superNames.get(0));
+        else {
+            int size = superNames.size();
+            ObjectArrayList<Object2ObjectOpenHashMap<String, String[]>> own = new ObjectArrayList<>(size);
+            ObjectArrayList<Object2ObjectOpenHashMap<String, String[]>> inherited = new ObjectArrayList<>(size);
+            ObjectOpenHashSet<String> names = new ObjectOpenHashSet<>();
+            for (int i = 0; i < size; i++) {
+                own.add(ownFields(superNames.get(i)));
+                inherited.add(computeFields(superNames.get(i)));
+                names.addAll(own.get(i).keySet());
+                names.addAll(inherited.get(i).keySet());
+            }
+            result = names.isEmpty() ? NO_FIELDS : new Object2ObjectOpenHashMap<>(names.size());
+            for (String name : names) {
+                String[] resolved = resolve(name, own);
+                result.put(name, resolved != null ? resolved : resolve(name, inherited));
+            }
+        }
+        building.remove(cls);
+        fields.put(cls, result);
+        return result;
+    }
+
+    private String[] resolve(String name, ObjectArrayList<Object2ObjectOpenHashMap<String, String[]>> tables) {
+        String[] resolved = null;
+        for (var table : tables) {
+            String[] r = table.get(name);
+            if (r != null) resolved = resolved == null ? r : reduce(name, resolved, r, false);
+        }
+        return resolved;
+    }
+
+    private Object2ObjectOpenHashMap<String, String[]> visibleFields(String cls) {
+        var result = visibleFields.get(cls);
+        if (result != null) return result;
+        var own = ownFields(cls);
+        var inherited = computeFields(cls);
+        if (own.isEmpty()) result = inherited;
+        else if (inherited.isEmpty()) result = own;
+        else {
+            result = new Object2ObjectOpenHashMap<>(inherited);
+            result.putAll(own);
+        }
+        visibleFields.put(cls, result);
+        return result;
+    }
+
+    private Object2ObjectOpenHashMap<String, String[]> ownFields(String cls) {
+        var result = ownFields.get(cls);
+        if (result != null) return result;
+        var map = new Object2ObjectOpenHashMap<String, String[]>();
+        remapper.visitFields(cls, (name, desc, mapped) -> map.put(name, new String[] {cls, mapped}));
+        result = map.isEmpty() ? NO_FIELDS : map;
+        ownFields.put(cls, result);
+        return result;
+    }
+
+    /**
+     * Picks the member which is actually inherited when the same member is reachable from more than one supertype.<br>
+     * Ambiguities are recorded as a single-element array holding the error message, and only reported when looked up
+     */
+    private String[] reduce(String combinedName, @NotNull String[] left, @NotNull String[] right, boolean method) {
+        if (left.length == 1) return left;
+        if (right.length == 1) return right;
+        if (left[0].equals(right[0])) return left;// just checking owner is enough
+        if (method && left[1].equals(right[1])) return left;// may be an override
+        int leftAcc = eci.getAccessFlags(left[0], combinedName);
+        int rightAcc = eci.getAccessFlags(right[0], combinedName);
+        if ((leftAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) {
+            if ((rightAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) return new String[] {"This can't happen!"};
+            return left;
+        } else if ((rightAcc & (Opcodes.ACC_PUBLIC | Opcodes.ACC_PROTECTED)) != 0) return right;
+        else if (Modifier.isPrivate(leftAcc) || Modifier.isPrivate(rightAcc)) return new String[] {"This can't happen!"};
+        return new String[] {method ? "Method duplicated... This should not happen!" : "Field duplicated... This should not happen!"};
+    }
+
+    /**
+     * Members visible from a class. Own members take precedence over the inherited ones
+     */
+    public static final class Members {
+        public static final Members NONE = new Members(new Object2ObjectOpenHashMap<>(), new Object2ObjectOpenHashMap<>(), NO_METHODS, NO_FIELDS);
+
+        private final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String>> ownMethods;
+        private final Object2ObjectOpenHashMap<String, String> ownFields;
+        private final Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> inheritedMethods;
+        private final Object2ObjectOpenHashMap<String, String[]> inheritedFields;
+
+        private Members(Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String>> ownMethods,
+                        Object2ObjectOpenHashMap<String, String> ownFields,
+                        Object2ObjectOpenHashMap<String, Object2ObjectOpenHashMap<String, String[]>> inheritedMethods,
+                        Object2ObjectOpenHashMap<String, String[]> inheritedFields) {
+            this.ownMethods = ownMethods;
+            this.ownFields = ownFields;
+            this.inheritedMethods = inheritedMethods;
+            this.inheritedFields = inheritedFields;
+        }
+
+        /**
+         * @return The mapped name, or null if the method is not mapped
+         * @throws IllegalArgumentException If the method is ambiguously inherited
+         */
+        public @Nullable String mapMethod(String name, String descriptor) {
+            var own = ownMethods.get(name);
+            if (own != null) {
+                String mapped = own.get(descriptor);
+                if (mapped != null) return mapped;
+            }
+            var inherited = inheritedMethods.get(name);
+            return inherited == null ? null : unwrap(inherited.get(descriptor));
+        }
+
+        /**
+         * @return The mapped name, or null if the field is not mapped
+         * @throws IllegalArgumentException If the field is ambiguously inherited
+         */
+        public @Nullable String mapField(String name) {
+            String mapped = ownFields.get(name);
+            return mapped != null ? mapped : unwrap(inheritedFields.get(name));
+        }
+    }
+}
@@ -60,6 +60,16 @@ public final class ClassProcessor {
         }
     }
 
+    /**
+     * Whether the output only depends on the input class and the mappings, so that it can be cached.<br>
+     * Regenerating variable names records abstract parameter names as a side effect, and registered processes are opaque
+     *
+     * @return true if the output can be cached
+     */
+    public boolean isCacheable() {
+        return !options.rvn && before.isEmpty() && after.isEmpty();
+    }
+
     public void beforeRunning(ClassFileRemapper mappingRemapper) throws IOException {
         CoreProcess.INSTANCE.beforeRunning(options, mappingRemapper);
         for (Process process : after) {
@@ -121,7 +131,7 @@ public final class ClassProcessor {
                 if (cfr.remapper instanceof ClassifiedMappingRemapper cmr) {
                     ClassMapping<? extends Mapping> cm = cmr.getClassMappingUnmapped(className);
                     if (cm != null) {
-                        MappingVariableNameProvider provider = new MappingVariableNameProvider(cm, cmr);
+                        MappingVariableNameProvider provider = new MappingVariableNameProvider(cm, cmr, cmr.getNameView());
                         if (provider.omitThis()) handler.setOmitThis();
                         handler.addProvider(provider);
                     }
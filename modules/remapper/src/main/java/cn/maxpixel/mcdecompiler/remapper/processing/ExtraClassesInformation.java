@@ -23,20 +23,31 @@ import cn.maxpixel.mcdecompiler.remapper.util.IOUtil;
 import cn.maxpixel.rewh.logging.LogManager;
 import cn.maxpixel.rewh.logging.Logger;
 import it.unimi.dsi.fastutil.objects.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.*;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class ExtraClassesInformation implements Consumer<Path> {// TODO: extensions
     private static final Logger LOGGER = LogManager.getLogger();
-    private final Object2ObjectOpenHashMap<String, ObjectArrayList<String>> superClassMap = new Object2ObjectOpenHashMap<>();
-    private final Object2ObjectOpenHashMap<String, Object2IntOpenHashMap<String>> accessMap = new Object2ObjectOpenHashMap<>();
+    private final ConcurrentHashMap<String, ObjectArrayList<String>> superClassMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Object2IntOpenHashMap<String>> accessMap = new ConcurrentHashMap<>();
     private final Map<String, Map<String, String>> refMap;
+    /**
+     * Members of mixin classes which should not be remapped. An empty set means the whole class should not be remapped.<br>
+     * Only written with the map itself locked. This is rare, as only mixin classes have such members
+     */
     public final Object2ObjectOpenHashMap<String, ObjectSet<String>> dontRemap = new Object2ObjectOpenHashMap<>();
+    // A class name is read again from every class referring to it, so share one instance of it
+    private final ConcurrentHashMap<String, String> names = new ConcurrentHashMap<>();
 
     public ExtraClassesInformation() {
         this(Object2ObjectMaps.emptyMap());
@@ -68,132 +79,186 @@ public class ExtraClassesInformation implements Consumer<Path> {// TODO: extensi
     @Override
     public void accept(Path classFilePath) {
         try {
-            ClassReader reader = new ClassReader(IOUtil.readAllBytes(classFilePath));
-            String className = reader.getClassName();
-            boolean needToRecord = (reader.getAccess() & (Opcodes.ACC_INTERFACE | Opcodes.ACC_RECORD)) == 0;
-            boolean notEnum = (reader.getAccess() & Opcodes.ACC_ENUM) == 0;
-            String superName = reader.getSuperName();
-            String[] interfaces = reader.getInterfaces();
-            int itfLen = interfaces.length;
-            if (needToRecord && !superName.startsWith("java/")) {
-                ObjectArrayList<String> list = new ObjectArrayList<>(itfLen + 1);
-                list.add(superName);
-                if (itfLen > 0) for(String itf : interfaces) {
-                    if (itf.startsWith("java/")) continue;
-                    list.add(itf);
-                }
-                synchronized (superClassMap) {
-                    superClassMap.put(className, list);
-                }
-            } else if (itfLen > 0) {
-                ObjectArrayList<String> list = new ObjectArrayList<>(itfLen);
-                for (String itf : interfaces) {
-                    if (itf.startsWith("java/")) continue;
-                    list.add(itf);
-                }
-                synchronized (superClassMap) {
-                    superClassMap.put(className, list);
-                }
-            }
-            reader.accept(new ClassVisitor(Deobfuscator.ASM_VERSION) {
-                private final boolean recordAccess = needToRecord && notEnum;
-                private final Object2IntOpenHashMap<String> map = recordAccess ? new Object2IntOpenHashMap<>() : null;
-                private boolean isMixin;
+            accept(IOUtil.readAllBytes(classFilePath));
+        } catch (IOException e) {
+            LOGGER.warn("Error when generating extra classes information", e);
+        }
+    }
 
-                @Override
-                public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-                    if ("Lorg/spongepowered/asm/mixin/Mixin;".equals(descriptor)) {
-                        this.isMixin = true;
-                        ObjectArrayList<String> list = superClassMap.computeIfAbsent(className, s -> new ObjectArrayList<>());
-                        return new AnnotationVisitor(api) {
-                            @Override
-                            public AnnotationVisitor visitArray(String name) {
-                                return switch (name) {
-                                    case "value" -> new AnnotationVisitor(api) {
-                                        @Override
-                                        public void visit(String name, Object value) {
-                                            if (value instanceof Type t && t.getSort() == Type.OBJECT) {
-                                                list.add(t.getInternalName());
-                                            } else throw new IllegalArgumentException();
-                                        }
-                                    };
-                                    case "targets" -> new AnnotationVisitor(api) {
-                                        @Override
-                                        public void visit(String name, Object value) {
-                                            if (value instanceof String s) {
-                                                list.add(refMap.getOrDefault(className, Object2ObjectMaps.emptyMap())
-                                                        .getOrDefault(s, s));
-                                            } else throw new IllegalArgumentException();
-                                        }
-                                    };
-                                    default -> null;
-                                };
-                            }
-
-                            @Override
-                            public void visit(String name, Object value) {
-                                if ("remap".equals(name) && value instanceof Boolean b && !b) {
-                                    dontRemap.put(className, ObjectSets.emptySet());
-                                }
-                            }
-                        };
-                    }
-                    return null;
-                }
+    public void accept(byte[] classBytes) {
+        ClassReader reader = new ClassReader(classBytes);
+        String className = intern(reader.getClassName());
+        boolean needToRecord = (reader.getAccess() & (Opcodes.ACC_INTERFACE | Opcodes.ACC_RECORD)) == 0;
+        boolean notEnum = (reader.getAccess() & Opcodes.ACC_ENUM) == 0;
+        String superName = reader.getSuperName();
+        String[] interfaces = reader.getInterfaces();
+        int itfLen = interfaces.length;
+        ObjectArrayList<String> superNames = null;
+        if (needToRecord && !superName.startsWith("java/")) {
+            superNames = new ObjectArrayList<>(itfLen + 1);
+            superNames.add(intern(superName));
+        } else if (itfLen > 0) superNames = new ObjectArrayList<>(itfLen);
+        if (itfLen > 0) for (String itf : interfaces) {
+            if (itf.startsWith("java/")) continue;
+            superNames.add(intern(itf));
+        }
+        ObjectArrayList<String> finalSuperNames = superNames;
+        // Everything is collected locally and published once in visitEnd, so workers never contend on a lock
+        reader.accept(new ClassVisitor(Deobfuscator.ASM_VERSION) {
+            private final boolean recordAccess = needToRecord && notEnum;
+            private final Object2IntOpenHashMap<String> map = recordAccess ? new Object2IntOpenHashMap<>() : null;
+            private ObjectArrayList<String> superNames = finalSuperNames;
+            private ObjectOpenHashSet<String> skipped;
+            private boolean isMixin;
+            private boolean dontRemapClass;
 
-                @Override
-                public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
-                    if (recordAccess && (access & Opcodes.ACC_PUBLIC) == 0) map.put(name, access);
-                    return !isMixin || dontRemap.get(className) == ObjectSets.<String>emptySet() ? null : new FieldVisitor(api) {
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                if ("Lorg/spongepowered/asm/mixin/Mixin;".equals(descriptor)) {
+                    this.isMixin = true;
+                    if (superNames == null) superNames = new ObjectArrayList<>();
+                    ObjectArrayList<String> list = superNames;
+                    return new AnnotationVisitor(api) {
                         @Override
-                        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-                            return new AnnotationVisitor(api) {
-                                @Override
-                                public void visit(String name, Object value) {
-                                    if ("remap".equals(name) && value instanceof Boolean b && !b) {
-                                        dontRemap.computeIfAbsent(className, k -> new ObjectOpenHashSet<>())
-                                                .add(name);
+                        public AnnotationVisitor visitArray(String name) {
+                            return switch (name) {
+                                case "value" -> new AnnotationVisitor(api) {
+                                    @Override
+                                    public void visit(String name, Object value) {
+                                        if (value instanceof Type t && t.getSort() == Type.OBJECT) {
+                                            list.add(intern(t.getInternalName()));
+                                        } else throw new IllegalArgumentException();
+                                    }
+                                };
+                                case "targets" -> new AnnotationVisitor(api) {
+                                    @Override
+                                    public void visit(String name, Object value) {
+                                        if (value instanceof String s) {
+                                            list.add(intern(refMap.getOrDefault(className, Object2ObjectMaps.emptyMap())
+                                                    .getOrDefault(s, s)));
+                                        } else throw new IllegalArgumentException();
                                     }
-                                }
+                                };
+                                default -> null;
                             };
                         }
-                    };
-                }
 
-                @Override
-                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
-                    if (recordAccess && (access & Opcodes.ACC_PUBLIC) == 0) map.put(name.concat(descriptor), access);
-                    return !isMixin || dontRemap.get(className) == ObjectSets.<String>emptySet() ? null : new MethodVisitor(api) {
                         @Override
-                        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
-                            return new AnnotationVisitor(api) {
-                                @Override
-                                public void visit(String name, Object value) {
-                                    if ("remap".equals(name) && value instanceof Boolean b && !b) {
-                                        dontRemap.computeIfAbsent(className, k -> new ObjectOpenHashSet<>())
-                                                .add(name.concat(descriptor));
-                                    }
-                                }
-                            };
+                        public void visit(String name, Object value) {
+                            if ("remap".equals(name) && value instanceof Boolean b && !b) dontRemapClass = true;
                         }
                     };
                 }
+                return null;
+            }
+
+            @Override
+            public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+                if (recordAccess && (access & Opcodes.ACC_PUBLIC) == 0) map.put(name, access);
+                return !isMixin || dontRemapClass ? null : new FieldVisitor(api) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotationDesc, boolean visible) {
+                        return new DontRemapVisitor(name);
+                    }
+                };
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                if (recordAccess && (access & Opcodes.ACC_PUBLIC) == 0) map.put(name.concat(descriptor), access);
+                return !isMixin || dontRemapClass ? null : new MethodVisitor(api) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(String annotationDesc, boolean visible) {
+                        return new DontRemapVisitor(name.concat(descriptor));
+                    }
+                };
+            }
+
+            @Override
+            public void visitEnd() {
+                record(className, superNames, recordAccess && !map.isEmpty() ? map : null,
+                        dontRemapClass ? ObjectSets.emptySet() : skipped);
+            }
+
+            class DontRemapVisitor extends AnnotationVisitor {
+                private final String member;
+
+                DontRemapVisitor(String member) {
+                    super(Deobfuscator.ASM_VERSION);
+                    this.member = member;
+                }
 
                 @Override
-                public void visitEnd() {
-                    if (recordAccess && !map.isEmpty()) {
-                        map.defaultReturnValue(Opcodes.ACC_PUBLIC);
-                        synchronized (accessMap) {
-                            accessMap.put(className, map);
-                        }
+                public void visit(String name, Object value) {
+                    if ("remap".equals(name) && value instanceof Boolean b && !b) {
+                        if (skipped == null) skipped = new ObjectOpenHashSet<>();
+                        skipped.add(member);
                     }
                 }
-            }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
-        } catch (IOException e) {
-            LOGGER.warn("Error when generating extra classes information", e);
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
+    /**
+     * @return The shared instance of the class name
+     */
+    String intern(String name) {
+        String interned = names.putIfAbsent(name, name);
+        return interned != null ? interned : name;
+    }
+
+    /**
+     * Records the information of a class, replacing the recorded one if any
+     * @param className Name of the class
+     * @param superNames Supertypes of the class, excluding the ones in the {@code java} package
+     * @param accessFlags Access flags of the non-public members
+     * @param skipped Members of the mixin class which should not be remapped. Empty if the whole class should not be remapped
+     */
+    void record(String className, @Nullable ObjectArrayList<String> superNames, @Nullable Object2IntOpenHashMap<String> accessFlags,
+                @Nullable ObjectSet<String> skipped) {
+        if (superNames != null) superClassMap.put(className, superNames);
+        if (accessFlags != null) {
+            accessFlags.defaultReturnValue(Opcodes.ACC_PUBLIC);
+            accessMap.put(className, accessFlags);
+        }
+        if (skipped != null) synchronized (dontRemap) {
+            dontRemap.put(className, skipped);
+        }
+    }
+
+    /**
+     * Merges all the information recorded in another instance into this one
+     * @param other The information to merge
+     */
+    public void merge(@NotNull ExtraClassesInformation other) {
+        superClassMap.putAll(other.superClassMap);
+        accessMap.putAll(other.accessMap);
+        synchronized (dontRemap) {
+            dontRemap.putAll(other.dontRemap);
         }
     }
 
+    /**
+     * @return Names of all the classes which have any information recorded
+     */
+    ObjectOpenHashSet<String> getRecordedClasses() {
+        ObjectOpenHashSet<String> classes = new ObjectOpenHashSet<>(superClassMap.keySet());
+        classes.addAll(accessMap.keySet());
+        classes.addAll(dontRemap.keySet());
+        return classes;
+    }
+
+    @Nullable Object2IntOpenHashMap<String> getAccessFlags(String className) {
+        return accessMap.get(className);
+    }
+
+    /**
+     * @return Names of all the classes which have their supertypes recorded
+     */
+    public Set<String> getClassesWithSuperNames() {
+        return Collections.unmodifiableSet(superClassMap.keySet());
+    }
+
     public ObjectList<String> getSuperNames(String name) {
         return superClassMap.get(name);
     }
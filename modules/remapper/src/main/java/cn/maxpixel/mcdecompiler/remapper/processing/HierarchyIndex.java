@@ -0,0 +1,194 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.processing;
+
+import cn.maxpixel.mcdecompiler.common.app.util.MiscUtils;
+import cn.maxpixel.mcdecompiler.remapper.Deobfuscator;
+import cn.maxpixel.rewh.logging.LogManager;
+import cn.maxpixel.rewh.logging.Logger;
+import it.unimi.dsi.fastutil.objects.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.Map;
+
+import static cn.maxpixel.mcdecompiler.remapper.util.DigestUtil.*;
+
+/**
+ * Binary index of the {@link ExtraClassesInformation} of a jar, so that the jar doesn't need to be parsed again.<br>
+ * An index is keyed by the path, size and last modified time of the jar, the same way {@link
+ * cn.maxpixel.mcdecompiler.remapper.io.RemapCache} identifies extra jars, and by the refMap. It is memory-mapped when
+ * being read.
+ * <p>
+ * Format: magic, version, class count, then for each class: name, flags, [supertypes], [access flags of members],
+ * [skipped members]. Strings are UTF-8 bytes prefixed with an unsigned short length, counts are ints.
+ */
+public final class HierarchyIndex {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int MAGIC = 0x4D444849;// MDHI
+    private static final int VERSION = 1;
+    private static final int HAS_SUPER_NAMES = 1;
+    private static final int HAS_ACCESS_FLAGS = 1 << 1;
+    private static final int HAS_SKIPPED = 1 << 2;
+
+    private HierarchyIndex() {
+        throw new AssertionError("No instances");
+    }
+
+    /**
+     * Compute the key of the index of the given jar
+     * @param jar The jar
+     * @param refMap The refMap used to resolve the mixin targets
+     * @return The key
+     */
+    public static @NotNull String computeKey(@NotNull Path jar, @NotNull Map<String, Map<String, String>> refMap) throws IOException {
+        MessageDigest md = newDigest();
+        update(md, VERSION);
+        update(md, Deobfuscator.ASM_VERSION);
+        update(md, refMap);
+        updateJar(md, jar);
+        return MiscUtils.createHashString(md).toString();
+    }
+
+    /**
+     * Reads the index and merges it into the given information
+     * @param index Path to the index
+     * @param info The information to merge into
+     * @return true if the index is successfully read, false if it doesn't exist or is corrupted
+     */
+    public static boolean read(@NotNull Path index, @NotNull ExtraClassesInformation info) {
+        ExtraClassesInformation read = new ExtraClassesInformation();
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Index too large");
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                LOGGER.warn("Ignoring incompatible hierarchy index {}", index);
+                return false;
+            }
+            for (int i = buf.getInt(); i > 0; i--) {
+                String className = info.intern(readString(buf));
+                int flags = buf.get();
+                ObjectArrayList<String> superNames = null;
+                Object2IntOpenHashMap<String> accessFlags = null;
+                ObjectSet<String> skipped = null;
+                if ((flags & HAS_SUPER_NAMES) != 0) {
+                    int size = buf.getInt();
+                    superNames = new ObjectArrayList<>(size);
+                    for (int j = 0; j < size; j++) superNames.add(info.intern(readString(buf)));
+                }
+                if ((flags & HAS_ACCESS_FLAGS) != 0) {
+                    int size = buf.getInt();
+                    accessFlags = new Object2IntOpenHashMap<>(size);
+                    for (int j = 0; j < size; j++) accessFlags.put(readString(buf), buf.getInt());
+                }
+                if ((flags & HAS_SKIPPED) != 0) {
+                    int size = buf.getInt();
+                    if (size == 0) skipped = ObjectSets.emptySet();
+                    else {
+                        skipped = new ObjectOpenHashSet<>(size);
+                        for (int j = 0; j < size; j++) skipped.add(readString(buf));
+                    }
+                }
+                read.record(className, superNames, accessFlags, skipped);
+            }
+            if (buf.hasRemaining()) throw new IOException("Trailing bytes");
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | BufferUnderflowException e) {
+            LOGGER.warn("Ignoring corrupted hierarchy index {}", index, e);
+            return false;
+        }
+        info.merge(read);
+        return true;
+    }
+
+    /**
+     * Writes the information as an index
+     * @param index Path to the index
+     * @param info The information to write
+     */
+    public static void write(@NotNull Path index, @NotNull ExtraClassesInformation info) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(Files.createDirectories(index.getParent()), index.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                ObjectOpenHashSet<String> classes = info.getRecordedClasses();
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(classes.size());
+                for (String className : classes) {
+                    ObjectList<String> superNames = info.getSuperNames(className);
+                    Object2IntOpenHashMap<String> accessFlags = info.getAccessFlags(className);
+                    ObjectSet<String> skipped = info.dontRemap.get(className);
+                    writeString(out, className);
+                    out.writeByte((superNames != null ? HAS_SUPER_NAMES : 0) | (accessFlags != null ? HAS_ACCESS_FLAGS : 0) |
+                            (skipped != null ? HAS_SKIPPED : 0));
+                    if (superNames != null) {
+                        out.writeInt(superNames.size());
+                        for (String superName : superNames) writeString(out, superName);
+                    }
+                    if (accessFlags != null) {
+                        out.writeInt(accessFlags.size());
+                        for (var entry : Object2IntMaps.fastIterable(accessFlags)) {
+                            writeString(out, entry.getKey());
+                            out.writeInt(entry.getIntValue());
+                        }
+                    }
+                    if (skipped != null) {
+                        out.writeInt(skipped.size());
+                        for (String member : skipped) writeString(out, member);
+                    }
+                }
+            }
+            try {
+                Files.move(temp, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Error writing hierarchy index {}", index, e);
+            if (temp != null) try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IOException("String too long: " + s);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
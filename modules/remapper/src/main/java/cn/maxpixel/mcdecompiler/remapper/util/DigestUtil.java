@@ -0,0 +1,87 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.util;
+
+import cn.maxpixel.mcdecompiler.common.app.util.MiscUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Digesting helpers shared by the on-disk caches, so that their keys are computed the same way
+ */
+public final class DigestUtil {
+    private DigestUtil() {
+        throw new AssertionError("No instances");
+    }
+
+    public static @NotNull MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw MiscUtils.wrapInRuntime(e);
+        }
+    }
+
+    public static void update(@NotNull MessageDigest md, int i) {
+        md.update(new byte[] {(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i});
+    }
+
+    /**
+     * Digest a string terminated by a zero byte. A null string is digested as an empty one
+     */
+    public static void update(@NotNull MessageDigest md, @Nullable String s) {
+        if (s != null) md.update(s.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+
+    /**
+     * Digest the refMap in a stable order
+     */
+    public static void update(@NotNull MessageDigest md, @NotNull Map<String, Map<String, String>> refMap) {
+        new TreeMap<>(refMap).forEach((className, map) -> {
+            update(md, className);
+            new TreeMap<>(map).forEach((k, v) -> {
+                update(md, k);
+                update(md, v);
+            });
+            md.update((byte) 0);
+        });
+        md.update((byte) 0);
+    }
+
+    /**
+     * Digest the identity of a jar, which is its absolute path, size and last modified time.<br>
+     * Jars are identified by their attributes instead of their contents, so that large jars don't need to be read
+     */
+    public static void updateJar(@NotNull MessageDigest md, @NotNull Path jar) throws IOException {
+        Path p = jar.toAbsolutePath().normalize();
+        update(md, p.toString());
+        update(md, Long.toString(Files.size(p)));
+        update(md, Files.getLastModifiedTime(p).toString());
+    }
+}
@@ -19,6 +19,7 @@
 package cn.maxpixel.mcdecompiler.remapper.variable;
 
 import cn.maxpixel.mcdecompiler.mapping.Mapping;
+import cn.maxpixel.mcdecompiler.mapping.NameView;
 import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
 import cn.maxpixel.mcdecompiler.mapping.component.Descriptor;
 import cn.maxpixel.mcdecompiler.mapping.component.LocalVariableTable;
@@ -34,16 +35,32 @@ public class MappingVariableNameProvider implements VariableNameProvider {
     private static final String PLACEHOLDER_CHARS = "o";
     private final Object2ObjectOpenHashMap<String, Mapping> methodByMappedName;
     private final boolean omitThis;
+    private final NameView view;
 
     public MappingVariableNameProvider(@NotNull ClassMapping<? extends Mapping> mapping, @NotNull MappingRemapper remapper) {
+        this(mapping, remapper, NameView.CURRENT);
+    }
+
+    /**
+     * Constructor
+     * @param mapping The class mapping
+     * @param remapper The remapper
+     * @param view The view to get the names of the mappings through. Should be the same as the remapper uses
+     */
+    public MappingVariableNameProvider(@NotNull ClassMapping<? extends Mapping> mapping, @NotNull MappingRemapper remapper,
+                                       @NotNull NameView view) {
         this.omitThis = remapper.isMethodStaticIdentifiable();
+        this.view = view;
+        // The unmapped and the mapped descriptors are swapped in reversed views
+        Class<? extends Descriptor> unmapped = view.isReversed() ? Descriptor.Mapped.class : Descriptor.Unmapped.class;
+        Class<? extends Descriptor> mapped = view.isReversed() ? Descriptor.Unmapped.class : Descriptor.Mapped.class;
         this.methodByMappedName = mapping.getMethods().stream().collect(Collectors.toMap(m -> {
             String descriptor;
-            if (m.hasComponent(Descriptor.Unmapped.class)) descriptor = remapper.mapMethodDesc(m.getComponent(Descriptor.Unmapped.class).descriptor);
-            else if (m.hasComponent(Descriptor.Mapped.class)) descriptor = m.getComponent(Descriptor.Mapped.class).descriptor;
+            if (m.hasComponent(unmapped)) descriptor = remapper.mapMethodDesc(m.<Descriptor>getComponent(unmapped).descriptor);
+            else if (m.hasComponent(mapped)) descriptor = m.<Descriptor>getComponent(mapped).descriptor;
             else if (m.hasComponent(Descriptor.Namespaced.class)) descriptor = remapper.mapMethodDesc(m.getComponent(Descriptor.Namespaced.class).descriptor);
             else throw new IllegalArgumentException("Method mapping requires at least one of the descriptor components");
-            return m.getMappedName().concat(descriptor);
+            return view.getMappedName(m).concat(descriptor);
         }, Function.identity(), Utils::onKeyDuplicate, Object2ObjectOpenHashMap::new));
     }
 
@@ -60,7 +77,7 @@ public class MappingVariableNameProvider implements VariableNameProvider {
             return (originalName, descriptor1, signature1, start, end, index) -> {
                 Mapping m = lvt.getLocalVariable(index);
                 if (m != null) {
-                    String mapped = m.getMappedName();
+                    String mapped = view.getMappedName(m);
                     return Utils.isStringNotBlank(mapped) && !PLACEHOLDER_CHARS.contains(mapped) ? mapped : null;
                 }
                 return null;
@@ -8,6 +8,7 @@ open module cn.maxpixel.mcdecompiler.remapper {
     requires cn.maxpixel.rewh.logging.core;
 
     exports cn.maxpixel.mcdecompiler.remapper;
+    exports cn.maxpixel.mcdecompiler.remapper.io;
     exports cn.maxpixel.mcdecompiler.remapper.processing;
     exports cn.maxpixel.mcdecompiler.remapper.variable;
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.test;
+
+import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.remapper.ClassifiedMappingRemapper;
+import cn.maxpixel.mcdecompiler.mapping.remapper.DescriptorRemapper;
+import cn.maxpixel.mcdecompiler.mapping.remapper.MappingRemapper;
+import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.remapper.processing.ClassFileRemapper;
+import cn.maxpixel.mcdecompiler.remapper.processing.ExtraClassesInformation;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the members resolved through the precomputed hierarchy against probing the supertypes on every lookup, which
+ * is how the members were resolved before
+ */
+class ClassHierarchyTest {
+    private static final int PUBLIC = Opcodes.ACC_PUBLIC;
+    private static final int PRIVATE = Opcodes.ACC_PRIVATE;
+    private static final int INTERFACE = Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT;
+
+    private static ExtraClassesInformation classes() {
+        ExtraClassesInformation eci = new ExtraClassesInformation();
+        // Diamond: I <- J, K <- C, and D extends C
+        eci.accept(create(INTERFACE, "I", null, new String[0], new String[] {"m"}, new String[] {"F"}));
+        eci.accept(create(INTERFACE, "J", null, new String[] {"I"}, new String[0], new String[0]));
+        eci.accept(create(INTERFACE, "K", null, new String[] {"I"}, new String[0], new String[0]));
+        eci.accept(create(0, "C", null, new String[] {"J", "K"}, new String[0], new String[0]));
+        eci.accept(create(0, "D", "C", new String[0], new String[0], new String[0]));
+        // Override: R extends P implements Q, where P.n and Q.n have the same mapped name
+        eci.accept(create(0, "P", null, new String[0], new String[] {"n", "o"}, new String[0]));
+        eci.accept(create(INTERFACE, "Q", null, new String[0], new String[] {"n"}, new String[0]));
+        eci.accept(create(0, "R", "P", new String[] {"Q"}, new String[] {"o"}, new String[0]));
+        // Private super method: T extends S, V extends S implements U, and S.p is private
+        eci.accept(create(0, "S", null, new String[0], new String[] {"-p"}, new String[] {"-f"}));
+        eci.accept(create(0, "T", "S", new String[0], new String[0], new String[0]));
+        eci.accept(create(INTERFACE, "U", null, new String[0], new String[] {"p"}, new String[0]));
+        eci.accept(create(0, "V", "S", new String[] {"U"}, new String[0], new String[0]));
+        return eci;
+    }
+
+    /**
+     * @param methods Names of the "()V" methods. Names starting with '-' are private
+     * @param fields Names of the "I" fields. Names starting with '-' are private
+     */
+    private static byte[] create(int access, String name, String superName, String[] interfaces, String[] methods, String[] fields) {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, PUBLIC | access, name, null, superName == null ? "java/lang/Object" : superName, interfaces);
+        for (String m : methods) {
+            boolean p = m.charAt(0) == '-';
+            cw.visitMethod((p ? PRIVATE : PUBLIC) | Opcodes.ACC_ABSTRACT, p ? m.substring(1) : m, "()V", null, null).visitEnd();
+        }
+        for (String f : fields) {
+            boolean p = f.charAt(0) == '-';
+            cw.visitField((p ? PRIVATE : PUBLIC) | Opcodes.ACC_STATIC, p ? f.substring(1) : f, "I", null, null).visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static ClassifiedMapping<PairedMapping> mappings() {
+        ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
+        ClassMapping<PairedMapping> i = new ClassMapping<>(new PairedMapping("I", "Iface"));
+        i.addMethod(MappingUtil.Paired.duo("m", "interfaceMethod", "()V"));
+        i.addField(MappingUtil.Paired.o("F", "CONSTANT"));
+        mappings.classes.add(i);
+        ClassMapping<PairedMapping> p = new ClassMapping<>(new PairedMapping("P", "Parent"));
+        p.addMethod(MappingUtil.Paired.duo("n", "overridden", "()V"));
+        p.addMethod(MappingUtil.Paired.duo("o", "parentO", "()V"));
+        mappings.classes.add(p);
+        ClassMapping<PairedMapping> q = new ClassMapping<>(new PairedMapping("Q", "Iface2"));
+        q.addMethod(MappingUtil.Paired.duo("n", "overridden", "()V"));
+        mappings.classes.add(q);
+        ClassMapping<PairedMapping> r = new ClassMapping<>(new PairedMapping("R", "Child"));
+        r.addMethod(MappingUtil.Paired.duo("o", "childO", "()V"));
+        mappings.classes.add(r);
+        ClassMapping<PairedMapping> s = new ClassMapping<>(new PairedMapping("S", "Super"));
+        s.addMethod(MappingUtil.Paired.duo("p", "privateMethod", "()V"));
+        s.addField(MappingUtil.Paired.o("f", "privateField"));
+        mappings.classes.add(s);
+        ClassMapping<PairedMapping> u = new ClassMapping<>(new PairedMapping("U", "Iface3"));
+        u.addMethod(MappingUtil.Paired.duo("p", "publicMethod", "()V"));
+        mappings.classes.add(u);
+        return mappings;
+    }
+
+    private static void check(ClassFileRemapper remapper) {
+        // Diamond interfaces
+        assertEquals("interfaceMethod", remapper.mapMethodName("C", "m", "()V"));
+        assertEquals("interfaceMethod", remapper.mapMethodName("D", "m", "()V"));
+        assertEquals("interfaceMethod", remapper.mapMethodName("J", "m", "()V"));
+        assertEquals("CONSTANT", remapper.mapFieldName("D", "F", "I"));
+        // Overridden method
+        assertEquals("overridden", remapper.mapMethodName("R", "n", "()V"));
+        assertEquals("childO", remapper.mapMethodName("R", "o", "()V"));
+        assertEquals("parentO", remapper.mapMethodName("P", "o", "()V"));
+        // Private super method. The only candidate is taken, and a public one is preferred over a private one
+        assertEquals("privateMethod", remapper.mapMethodName("T", "p", "()V"));
+        assertEquals("privateField", remapper.mapFieldName("T", "f", "I"));
+        assertEquals("publicMethod", remapper.mapMethodName("V", "p", "()V"));
+        // Unmapped
+        assertEquals("m", remapper.mapMethodName("C", "m", "(I)V"));
+        assertEquals("x", remapper.mapMethodName("D", "x", "()V"));
+        assertEquals("x", remapper.mapFieldName("unknown", "x", "I"));
+        assertEquals("<init>", remapper.mapMethodName("C", "<init>", "()V"));
+    }
+
+    @Test
+    void testResolved() {
+        ClassifiedMappingRemapper remapper = new ClassifiedMappingRemapper(mappings());
+        assertTrue(remapper.canVisitMembers());
+        check(new ClassFileRemapper(remapper, classes()));
+    }
+
+    @Test
+    void testProbed() {
+        ProbeOnlyRemapper remapper = new ProbeOnlyRemapper(new ClassifiedMappingRemapper(mappings()));
+        assertFalse(remapper.canVisitMembers());
+        check(new ClassFileRemapper(remapper, classes()));
+    }
+
+    @Test
+    void testAmbiguous() {
+        ClassifiedMapping<PairedMapping> mappings = mappings();
+        mappings.classes.get(2).getMethods().get(0).mappedName = "different";// Q.n
+        assertThrows(IllegalArgumentException.class, () -> new ClassFileRemapper(new ClassifiedMappingRemapper(mappings), classes())
+                .mapMethodName("R", "n", "()V"));
+        assertThrows(IllegalArgumentException.class, () -> new ClassFileRemapper(new ProbeOnlyRemapper(
+                new ClassifiedMappingRemapper(mappings)), classes()).mapMethodName("R", "n", "()V"));
+    }
+
+    /**
+     * A remapper which doesn't implement the member visiting methods, like the ones written before they were added
+     */
+    private record ProbeOnlyRemapper(MappingRemapper delegate) implements MappingRemapper {
+        @Override
+        public boolean hasClassMapping(String name) {
+            return delegate.hasClassMapping(name);
+        }
+
+        @Override
+        public boolean isMethodStaticIdentifiable() {
+            return delegate.isMethodStaticIdentifiable();
+        }
+
+        @Override
+        public String mapClass(@NotNull String name) {
+            return delegate.mapClass(name);
+        }
+
+        @Override
+        public String unmapClass(@NotNull String name) {
+            return delegate.unmapClass(name);
+        }
+
+        @Override
+        public String mapField(@NotNull String owner, @NotNull String name) {
+            return delegate.mapField(owner, name);
+        }
+
+        @Override
+        public String mapMethod(@NotNull String owner, @NotNull String name, String desc) {
+            return delegate.mapMethod(owner, name, desc);
+        }
+
+        @Override
+        public DescriptorRemapper getDescriptorRemapper() {
+            return delegate.getDescriptorRemapper();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2025 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.test;
+
+import cn.maxpixel.mcdecompiler.remapper.ClassSelector;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassSelectorTest {
+    @Test
+    void testAll() {
+        for (String all : List.of("*", "*all*")) {
+            ClassSelector selector = ClassSelector.compile(List.of("net/foo/", all));
+            assertTrue(selector.isAll());
+            assertFalse(selector.isEmpty());
+            assertTrue(selector.test("a"));
+            assertTrue(selector.test("net/bar/Baz"));
+        }
+        ClassSelector empty = ClassSelector.compile(List.of());
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.isAll());
+        assertFalse(empty.test("a"));
+    }
+
+    @Test
+    void testPrefix() {
+        ClassSelector selector = ClassSelector.compile(List.of("net/foo/", "net/foo/bar/", "a", "com/Main"));
+        assertFalse(selector.isAll());
+        assertTrue(selector.test("net/foo/A"));
+        assertTrue(selector.test("net/foo/bar/B"));
+        assertTrue(selector.test("a"));
+        assertTrue(selector.test("abc"));
+        assertTrue(selector.test("com/Main"));
+        assertTrue(selector.test("com/Main$Inner"));
+        assertFalse(selector.test("net/fo"));
+        assertFalse(selector.test("net/fooA"));
+        assertFalse(selector.test("b"));
+        assertFalse(selector.test("com/Mai"));
+        assertFalse(selector.test(""));
+
+        ClassSelector shorterLater = ClassSelector.compile(List.of("net/foo/bar/", "net/"));
+        assertTrue(shorterLater.test("net/A"));
+        assertTrue(shorterLater.test("net/foo/bar/B"));
+        assertFalse(shorterLater.test("ne"));
+    }
+
+    @Test
+    void testGlob() {
+        ClassSelector selector = ClassSelector.compile(List.of("net/foo/*", "a?c", "com/*/Main"));
+        assertTrue(selector.test("net/foo/A"));
+        assertTrue(selector.test("net/foo/"));
+        assertFalse(selector.test("net/foo/bar/B"));// * doesn't match /
+        assertTrue(selector.test("abc"));
+        assertFalse(selector.test("ac"));
+        assertFalse(selector.test("abbc"));
+        assertFalse(selector.test("a/c"));// ? doesn't match /
+        assertFalse(selector.test("abcd"));// Globs match the whole name
+        assertTrue(selector.test("com/x/Main"));
+        assertFalse(selector.test("com/x/y/Main"));
+        assertFalse(selector.test("com/x/Main$Inner"));
+    }
+
+    @Test
+    void testDoubleStar() {
+        ClassSelector selector = ClassSelector.compile(List.of("net/foo/**", "**/Main", "org/**/util/*"));
+        assertTrue(selector.test("net/foo/A"));
+        assertTrue(selector.test("net/foo/bar/B"));
+        assertFalse(selector.test("net/fooA"));
+        assertTrue(selector.test("x/Main"));
+        assertTrue(selector.test("a/b/c/Main"));
+        assertFalse(selector.test("Main"));
+        assertFalse(selector.test("a/MainA"));
+        assertTrue(selector.test("org/a/b/util/U"));
+        assertTrue(selector.test("org//util/U"));
+        assertFalse(selector.test("org/util/U"));
+        assertFalse(selector.test("org/a/util/x/U"));
+    }
+
+    @Test
+    void testGlobQuotesMetaCharacters() {
+        ClassSelector selector = ClassSelector.compile(List.of("a.b$C*", "x+?"));
+        assertTrue(selector.test("a.b$C"));
+        assertTrue(selector.test("a.b$Cd"));
+        assertFalse(selector.test("aXb$C"));
+        assertTrue(selector.test("x+y"));
+        assertFalse(selector.test("xxy"));
+    }
+
+    @Test
+    void testRegex() {
+        ClassSelector selector = ClassSelector.compile(List.of("regex:net/foo/[A-Z]\\w*", "regex:a|b"));
+        assertFalse(selector.isEmpty());
+        assertTrue(selector.test("net/foo/Abc"));
+        assertFalse(selector.test("net/foo/abc"));
+        assertFalse(selector.test("net/foo/Abc/D"));// Regexes match the whole name
+        assertTrue(selector.test("a"));
+        assertTrue(selector.test("b"));
+        assertFalse(selector.test("ab"));
+
+        ClassSelector single = ClassSelector.compile(List.of("regex:a|b"));
+        assertTrue(single.test("a"));
+        assertTrue(single.test("b"));
+        assertFalse(single.test("ab"));
+    }
+
+    @Test
+    void testMixed() {
+        ClassSelector selector = ClassSelector.compile(List.of("net/foo/", "com/*/Main", "regex:org/.+/Util", "x?"));
+        assertTrue(selector.test("net/foo/bar/A"));
+        assertTrue(selector.test("com/x/Main"));
+        assertTrue(selector.test("org/a/b/Util"));
+        assertTrue(selector.test("xy"));
+        assertFalse(selector.test("com/x/y/Main"));
+        assertFalse(selector.test("org/Util"));
+        assertFalse(selector.test("xyz"));
+        assertFalse(selector.test("net/bar/A"));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.test;
+
+import cn.maxpixel.mcdecompiler.remapper.io.JarSink;
+import cn.maxpixel.mcdecompiler.remapper.io.RawZipReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JarIOTest {
+    @Test
+    void testRawCopy(@TempDir Path tmp) throws IOException {
+        Path source = tmp.resolve("source.jar");
+        byte[] random = new byte[10000];
+        new Random(0).nextBytes(random);
+        byte[] text = "text ".repeat(2000).getBytes(StandardCharsets.UTF_8);
+        byte[] large = new byte[3 << 20];// Streamed from the source instead of being read into memory
+        new Random(1).nextBytes(large);
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(source))) {
+            zos.putNextEntry(new ZipEntry("dir/"));
+            zos.closeEntry();
+            ZipEntry stored = new ZipEntry("dir/stored.bin");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(random.length);
+            CRC32 crc = new CRC32();
+            crc.update(random);
+            stored.setCrc(crc.getValue());
+            zos.putNextEntry(stored);
+            zos.write(random);
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("deflated.txt"));
+            zos.write(text);
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("empty"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("large.bin"));
+            zos.write(large);
+            zos.closeEntry();
+        }
+
+        Path target = tmp.resolve("target.jar");
+        try (RawZipReader reader = new RawZipReader(source); JarSink sink = new JarSink(target)) {
+            assertEquals(List.of("dir/stored.bin", "deflated.txt", "empty", "large.bin"),
+                    reader.getEntries().stream().map(RawZipReader.Entry::getName).toList());
+            for (RawZipReader.Entry entry : reader.getEntries()) sink.putRaw(sink.reserve(), entry);
+            sink.put(sink.reserve(), "put.txt", text);
+            sink.put(sink.reserve(), "put.bin", random);
+        }
+
+        try (ZipFile src = new ZipFile(source.toFile()); ZipFile dst = new ZipFile(target.toFile())) {
+            List<String> names = new ArrayList<>();
+            for (ZipEntry e : Collections.list(dst.entries())) names.add(e.getName());
+            assertEquals(List.of("dir/stored.bin", "deflated.txt", "empty", "large.bin", "put.txt", "put.bin"), names);
+            for (String name : List.of("dir/stored.bin", "deflated.txt", "empty", "large.bin")) {
+                ZipEntry s = src.getEntry(name), d = dst.getEntry(name);
+                assertEquals(s.getMethod(), d.getMethod(), name);
+                assertEquals(s.getCrc(), d.getCrc(), name);
+                assertEquals(s.getSize(), d.getSize(), name);
+                assertEquals(s.getCompressedSize(), d.getCompressedSize(), name);
+                try (var si = src.getInputStream(s); var di = dst.getInputStream(d)) {
+                    assertArrayEquals(si.readAllBytes(), di.readAllBytes(), name);
+                }
+            }
+            assertEquals(ZipEntry.STORED, dst.getEntry("dir/stored.bin").getMethod());
+            assertEquals(ZipEntry.DEFLATED, dst.getEntry("deflated.txt").getMethod());
+            try (var is = dst.getInputStream(dst.getEntry("put.txt"))) {
+                assertArrayEquals(text, is.readAllBytes());
+            }
+            try (var is = dst.getInputStream(dst.getEntry("put.bin"))) {
+                assertArrayEquals(random, is.readAllBytes());
+            }
+        }
+
+        try (RawZipReader reader = new RawZipReader(target)) {
+            for (RawZipReader.Entry entry : reader.getEntries()) {
+                byte[] expected = switch (entry.getName()) {
+                    case "dir/stored.bin", "put.bin" -> random;
+                    case "deflated.txt", "put.txt" -> text;
+                    case "empty" -> new byte[0];
+                    case "large.bin" -> large;
+                    default -> fail(entry.getName());
+                };
+                assertEquals(expected.length, entry.getSize());
+                assertArrayEquals(expected, entry.readBytes(), entry.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * MinecraftDecompiler. A tool/library to deobfuscate and decompile jars.
+ * Copyright (C) 2019-2024 MaxPixelStudios(XiaoPangxie732)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package cn.maxpixel.mcdecompiler.remapper.test;
+
+import cn.maxpixel.mcdecompiler.mapping.PairedMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassMapping;
+import cn.maxpixel.mcdecompiler.mapping.collection.ClassifiedMapping;
+import cn.maxpixel.mcdecompiler.mapping.component.LocalVariableTable;
+import cn.maxpixel.mcdecompiler.mapping.remapper.ClassifiedMappingRemapper;
+import cn.maxpixel.mcdecompiler.mapping.util.MappingUtil;
+import cn.maxpixel.mcdecompiler.remapper.DeobfuscationOptions;
+import cn.maxpixel.mcdecompiler.remapper.io.RemapCache;
+import cn.maxpixel.mcdecompiler.remapper.processing.ClassHierarchy;
+import cn.maxpixel.mcdecompiler.remapper.processing.ExtraClassesInformation;
+import it.unimi.dsi.fastutil.objects.Object2ObjectMaps;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectSets;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemapCacheTest {
+    private static final byte[] CLASS = createClass();
+
+    @TempDir
+    Path tmp;
+
+    private static byte[] createClass() {
+        ClassWriter cw = new ClassWriter(0);
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, "a", null, "b", null);
+        cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, "m", "(I)V", null, null).visitEnd();
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static ClassifiedMapping<PairedMapping> mappings(Consumer<ClassMapping<PairedMapping>> customizer) {
+        ClassifiedMapping<PairedMapping> mappings = new ClassifiedMapping<>();
+        ClassMapping<PairedMapping> a = new ClassMapping<>(new PairedMapping("a", "A"));
+        a.addMethod(MappingUtil.Paired.lvduo("m", "method", "(I)V"));
+        customizer.accept(a);
+        mappings.classes.add(a);
+        mappings.classes.add(new ClassMapping<>(new PairedMapping("b", "B")));
+        return mappings;
+    }
+
+    private String key(ClassifiedMapping<PairedMapping> mappings, DeobfuscationOptions options) throws IOException {
+        ClassifiedMappingRemapper remapper = new ClassifiedMappingRemapper(mappings);
+        ExtraClassesInformation eci = new ExtraClassesInformation();
+        eci.accept(CLASS);
+        var classes = new Object2ObjectOpenHashMap<String, byte[]>();
+        classes.put("a.class", CLASS);
+        RemapCache cache = new RemapCache(tmp.resolve("cache"), options, remapper, new ClassHierarchy(remapper, eci), classes);
+        return cache.computeKey(CLASS);
+    }
+
+    private static void param(ClassMapping<PairedMapping> cm, int index, String name) {
+        cm.getMethods().get(0).getComponent(LocalVariableTable.Paired.class).setLocalVariable(index, new PairedMapping(name));
+    }
+
+    private static DeobfuscationOptions options(boolean rvn, Set<Path> extraJars) {
+        return new DeobfuscationOptions(true, rvn, false, extraJars, ObjectSets.emptySet(), Object2ObjectMaps.emptyMap());
+    }
+
+    @Test
+    void testInvalidation() throws IOException {
+        DeobfuscationOptions options = options(false, Set.of());
+        String base = key(mappings(cm -> {}), options);
+        assertEquals(base, key(mappings(cm -> {}), options));
+
+        // Mappings of the class, its methods and parameters
+        assertNotEquals(base, key(mappings(cm -> cm.mapping.mappedName = "C"), options));
+        assertNotEquals(base, key(mappings(cm -> cm.getMethods().get(0).mappedName = "other"), options));
+        String param0 = key(mappings(cm -> param(cm, 0, "p")), options);
+        String param256 = key(mappings(cm -> param(cm, 256, "p")), options);
+        assertNotEquals(base, param0);
+        assertNotEquals(param0, param256);
+
+        // Mappings of the supertype
+        ClassifiedMapping<PairedMapping> superChanged = mappings(cm -> {});
+        superChanged.classes.get(1).mapping.mappedName = "C";
+        assertNotEquals(base, key(superChanged, options));
+
+        // Options
+        assertNotEquals(base, key(mappings(cm -> {}), options(true, Set.of())));
+
+        // Extra jars
+        Path jar = tmp.resolve("extra.jar");
+        Files.write(jar, new byte[] {1});
+        String withJar = key(mappings(cm -> {}), options(false, Set.of(jar)));
+        assertNotEquals(base, withJar);
+        Files.write(jar, new byte[] {1, 2});
+        assertNotEquals(withJar, key(mappings(cm -> {}), options(false, Set.of(jar))));
+    }
+
+    @Test
+    void testGetAndPut() throws IOException {
+        ClassifiedMappingRemapper remapper = new ClassifiedMappingRemapper(mappings(cm -> {}));
+        RemapCache cache = new RemapCache(tmp.resolve("cache"), options(false, Set.of()), remapper,
+                new ClassHierarchy(remapper, new ExtraClassesInformation()), new Object2ObjectOpenHashMap<>());
+        String key = cache.computeKey(CLASS);
+        assertNull(cache.get(key));
+        cache.put(key, CLASS);
+        assertArrayEquals(CLASS, cache.get(key));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}